@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+/**
+ * The parts of the repository configuration which are refreshed independently of each other
+ * 
+ * <p>Each section has its own time-to-live, after which it is fetched again by the next refresh. Project
+ * sections are tracked separately for each project.</p>
+ */
+public enum CacheSection {
+
+    /**
+     * Priorities, statuses, severities, resolutions and the other enumerations, which rarely change
+     */
+    GLOBAL_ENUMS(false, 7 * 24),
+
+    /**
+     * The repository version, thresholds, default values and feature flags
+     */
+    CONFIGURATION(false, 24),
+
+    TAGS(false, 24),
+
+    PROJECT_FILTERS(true, 24),
+
+    PROJECT_CUSTOM_FIELDS(true, 3 * 24),
+
+    PROJECT_CATEGORIES(true, 3 * 24),
+
+    /**
+     * The developers and reporters of a project
+     */
+    PROJECT_USERS(true, 24),
+
+    PROJECT_VERSIONS(true, 24);
+
+    private final boolean projectSpecific;
+
+    private final int defaultTtlHours;
+
+    private CacheSection(boolean projectSpecific, int defaultTtlHours) {
+
+        this.projectSpecific = projectSpecific;
+        this.defaultTtlHours = defaultTtlHours;
+    }
+
+    /**
+     * @return true if the section is tracked separately for each project
+     */
+    public boolean isProjectSpecific() {
+
+        return projectSpecific;
+    }
+
+    /**
+     * @return the number of hours after which the section is refreshed, unless configured otherwise
+     */
+    public int getDefaultTtlHours() {
+
+        return defaultTtlHours;
+    }
+}
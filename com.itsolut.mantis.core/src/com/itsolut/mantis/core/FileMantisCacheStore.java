@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.core.runtime.IPath;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Stores the cache data of each repository in a separate file
+ * 
+ * <p>The files are kept in a <tt>repositoryCaches</tt> directory next to the
+ * {@link RepositoryPersistencePath repository persistence path}, which is where older versions stored
+ * the data of all repositories in a single serialized file. That file is migrated once, by splitting it
+ * into per-repository files the first time the store is accessed, and then removed.</p>
+ * 
+ * <p>Each file starts with a magic number, the format version and the repository url, followed by the
+ * data as encoded by {@link MantisCacheDataCodec}. Files written in any other format version are discarded,
+ * and their data is retrieved again from the repository. Files are first written under a temporary name
+ * and then renamed, so that a crash while writing leaves the previous file intact. Files which cannot be
+ * read are discarded.</p>
+ */
+@Singleton
+public class FileMantisCacheStore implements IMantisCacheStore {
+
+    static final String CACHE_DIRECTORY_NAME = "repositoryCaches";
+
+    private static final int MAGIC = 0x4D434344; // MCCD
+
+    private static final String EXTENSION = ".cache";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final File directory;
+
+    private final File legacyStateFile;
+
+    private boolean legacyStateMigrated;
+
+    @Inject
+    public FileMantisCacheStore(@RepositoryPersistencePath IPath repositoryPersistencePath) {
+
+        this(repositoryPersistencePath.toFile());
+    }
+
+    FileMantisCacheStore(File legacyStateFile) {
+
+        this.legacyStateFile = legacyStateFile;
+        this.directory = new File(legacyStateFile.getAbsoluteFile().getParentFile(), CACHE_DIRECTORY_NAME);
+    }
+
+    public synchronized MantisCacheData load(String repositoryUrl) {
+
+        migrateLegacyStateIfNeeded();
+
+        File cacheFile = getCacheFile(repositoryUrl);
+        if (!cacheFile.isFile())
+            return null;
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a repository cache file");
+
+            int formatVersion = in.readInt();
+
+            String storedUrl = MantisCacheDataCodec.readString(in);
+            if (!repositoryUrl.equals(storedUrl))
+                throw new IOException("Cache file belongs to " + storedUrl);
+
+            return MantisCacheDataCodec.read(in, formatVersion);
+        } catch (IOException e) {
+            discard(cacheFile, repositoryUrl, e);
+            return null;
+        } catch (RuntimeException e) {
+            discard(cacheFile, repositoryUrl, e);
+            return null;
+        } finally {
+            closeSilently(in);
+        }
+    }
+
+    public synchronized boolean save(String repositoryUrl, MantisCacheData cacheData) {
+
+        File cacheFile = getCacheFile(repositoryUrl);
+        File tempFile = new File(directory, cacheFile.getName() + TEMP_EXTENSION);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            MantisCorePlugin.warn("Unable to create cache directory " + directory + " .");
+            return false;
+        }
+
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(MantisCacheDataCodec.FORMAT_VERSION);
+            MantisCacheDataCodec.writeString(out, repositoryUrl);
+            MantisCacheDataCodec.write(cacheData, out);
+            out.close();
+            out = null;
+
+            replace(tempFile, cacheFile);
+            return true;
+        } catch (IOException e) {
+            MantisCorePlugin.warn("Failed writing cache for repository " + repositoryUrl + " .", e);
+            return false;
+        } finally {
+            closeSilently(out);
+            tempFile.delete();
+        }
+    }
+
+    private static void replace(File source, File target) throws IOException {
+
+        if (source.renameTo(target))
+            return;
+
+        // renaming over an existing file is not supported on all platforms
+        target.delete();
+        if (!source.renameTo(target))
+            throw new IOException("Unable to rename " + source + " to " + target);
+    }
+
+    public synchronized void remove(String repositoryUrl) {
+
+        getCacheFile(repositoryUrl).delete();
+    }
+
+    File getCacheFile(String repositoryUrl) {
+
+        return new File(directory, sha1(repositoryUrl) + EXTENSION);
+    }
+
+    private void migrateLegacyStateIfNeeded() {
+
+        if (legacyStateMigrated)
+            return;
+
+        legacyStateMigrated = true;
+
+        if (!legacyStateFile.isFile())
+            return;
+
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacyStateFile)));
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String url = (String) in.readObject();
+                MantisCacheData data = (MantisCacheData) in.readObject();
+                if (!getCacheFile(url).exists())
+                    save(url, data);
+            }
+        } catch (Exception e) {
+            MantisCorePlugin.warn("Unable to migrate the repository cache from " + legacyStateFile + " , it will be discarded.", e);
+        } finally {
+            closeSilently(in);
+            legacyStateFile.delete();
+        }
+    }
+
+    private void discard(File cacheFile, String repositoryUrl, Exception reason) {
+
+        MantisCorePlugin.warn("Removing invalid cache file for repository " + repositoryUrl, reason);
+        cacheFile.delete();
+    }
+
+    static String sha1(String value) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void closeSilently(Closeable closeable) {
+
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+}
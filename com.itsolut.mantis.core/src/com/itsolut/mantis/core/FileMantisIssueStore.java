@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Stores each issue in a separate file, evicting the least recently used issues once the total size
+ * exceeds a limit
+ * 
+ * <p>The files are kept in an <tt>issueStore</tt> directory next to the
+ * {@link RepositoryPersistencePath repository persistence path}, with one sub-directory per repository.
+ * Each file starts with a magic number, the format version, the repository url, the issue id and the
+ * last update time, followed by the serialized issue. The modification time of a file records its last
+ * use, so that the eviction order survives restarts. Files which cannot be read are discarded.</p>
+ */
+@Singleton
+public class FileMantisIssueStore implements IMantisIssueStore {
+
+    static final String ISSUE_DIRECTORY_NAME = "issueStore";
+
+    static final long DEFAULT_MAX_SIZE_BYTES = 32l * 1024l * 1024l;
+
+    private static final int MAGIC = 0x4D434953; // MCIS
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String EXTENSION = ".issue";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final File directory;
+
+    private final long maxSizeBytes;
+
+    // access ordered, so that the eldest entry is the least recently used issue
+    private final Map<File, Long> fileSizes = new LinkedHashMap<File, Long>(16, 0.75f, true);
+
+    private long totalSize;
+
+    private boolean indexed;
+
+    @Inject
+    public FileMantisIssueStore(@RepositoryPersistencePath IPath repositoryPersistencePath) {
+
+        this(new File(repositoryPersistencePath.toFile().getAbsoluteFile().getParentFile(), ISSUE_DIRECTORY_NAME),
+                DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    FileMantisIssueStore(File directory, long maxSizeBytes) {
+
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public synchronized Serializable load(String repositoryUrl, int issueId, long lastUpdated) {
+
+        indexIfNeeded();
+
+        File issueFile = getIssueFile(repositoryUrl, issueId);
+        if (fileSizes.get(issueFile) == null)
+            return null;
+
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(issueFile)));
+
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not an issue file");
+            if (in.readInt() != FORMAT_VERSION)
+                throw new IOException("Unsupported issue file format");
+            if (!repositoryUrl.equals(in.readUTF()) || in.readInt() != issueId)
+                throw new IOException("Issue file belongs to another issue");
+
+            // an outdated issue is kept until it is replaced by the next save
+            if (in.readLong() != lastUpdated)
+                return null;
+
+            Serializable issue = (Serializable) in.readObject();
+            issueFile.setLastModified(System.currentTimeMillis());
+            return issue;
+        } catch (IOException e) {
+            discard(issueFile, e);
+            return null;
+        } catch (ClassNotFoundException e) {
+            discard(issueFile, e);
+            return null;
+        } catch (RuntimeException e) {
+            discard(issueFile, e);
+            return null;
+        } finally {
+            closeSilently(in);
+        }
+    }
+
+    public synchronized void save(String repositoryUrl, int issueId, long lastUpdated, Serializable issue) {
+
+        indexIfNeeded();
+
+        File issueFile = getIssueFile(repositoryUrl, issueId);
+        File repositoryDirectory = issueFile.getParentFile();
+        File tempFile = new File(repositoryDirectory, issueFile.getName() + TEMP_EXTENSION);
+
+        if (!repositoryDirectory.isDirectory() && !repositoryDirectory.mkdirs()) {
+            MantisCorePlugin.warn("Unable to create issue store directory " + repositoryDirectory + " .");
+            return;
+        }
+
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(repositoryUrl);
+            out.writeInt(issueId);
+            out.writeLong(lastUpdated);
+            out.writeObject(issue);
+            out.close();
+            out = null;
+
+            forget(issueFile);
+            replace(tempFile, issueFile);
+            remember(issueFile);
+            evictIfNeeded();
+        } catch (IOException e) {
+            MantisCorePlugin.warn("Failed storing issue " + issueId + " for repository " + repositoryUrl + " .", e);
+        } finally {
+            closeSilently(out);
+            tempFile.delete();
+        }
+    }
+
+    public synchronized void remove(String repositoryUrl) {
+
+        indexIfNeeded();
+
+        File repositoryDirectory = getRepositoryDirectory(repositoryUrl);
+        for (Iterator<Map.Entry<File, Long>> it = fileSizes.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<File, Long> entry = it.next();
+            if (entry.getKey().getParentFile().equals(repositoryDirectory)) {
+                entry.getKey().delete();
+                totalSize -= entry.getValue().longValue();
+                it.remove();
+            }
+        }
+        repositoryDirectory.delete();
+    }
+
+    synchronized long getTotalSize() {
+
+        indexIfNeeded();
+
+        return totalSize;
+    }
+
+    File getIssueFile(String repositoryUrl, int issueId) {
+
+        return new File(getRepositoryDirectory(repositoryUrl), issueId + EXTENSION);
+    }
+
+    private File getRepositoryDirectory(String repositoryUrl) {
+
+        return new File(directory, FileMantisCacheStore.sha1(repositoryUrl));
+    }
+
+    private void indexIfNeeded() {
+
+        if (indexed)
+            return;
+
+        indexed = true;
+
+        File[] repositoryDirectories = directory.listFiles();
+        if (repositoryDirectories == null)
+            return;
+
+        List<File> issueFiles = new ArrayList<File>();
+        for (File repositoryDirectory : repositoryDirectories) {
+            File[] files = repositoryDirectory.listFiles(new FileFilter() {
+                public boolean accept(File file) {
+
+                    return file.getName().endsWith(EXTENSION);
+                }
+            });
+            if (files != null)
+                issueFiles.addAll(Arrays.asList(files));
+        }
+
+        File[] byLastUse = issueFiles.toArray(new File[issueFiles.size()]);
+        Arrays.sort(byLastUse, new Comparator<File>() {
+            public int compare(File first, File second) {
+
+                long firstUse = first.lastModified();
+                long secondUse = second.lastModified();
+                return firstUse < secondUse ? -1 : (firstUse == secondUse ? 0 : 1);
+            }
+        });
+
+        for (File issueFile : byLastUse)
+            remember(issueFile);
+
+        evictIfNeeded();
+    }
+
+    private void remember(File issueFile) {
+
+        long size = issueFile.length();
+        fileSizes.put(issueFile, Long.valueOf(size));
+        totalSize += size;
+    }
+
+    private void forget(File issueFile) {
+
+        Long size = fileSizes.remove(issueFile);
+        if (size != null)
+            totalSize -= size.longValue();
+    }
+
+    private void evictIfNeeded() {
+
+        for (Iterator<Map.Entry<File, Long>> it = fileSizes.entrySet().iterator(); totalSize > maxSizeBytes && it.hasNext();) {
+            Map.Entry<File, Long> eldest = it.next();
+            eldest.getKey().delete();
+            totalSize -= eldest.getValue().longValue();
+            it.remove();
+        }
+    }
+
+    private void discard(File issueFile, Exception reason) {
+
+        MantisCorePlugin.warn("Removing invalid issue file " + issueFile, reason);
+        forget(issueFile);
+        issueFile.delete();
+    }
+
+    private static void replace(File source, File target) throws IOException {
+
+        if (source.renameTo(target))
+            return;
+
+        // renaming over an existing file is not supported on all platforms
+        target.delete();
+        if (!source.renameTo(target))
+            throw new IOException("Unable to rename " + source + " to " + target);
+    }
+
+    private static void closeSilently(Closeable closeable) {
+
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+}
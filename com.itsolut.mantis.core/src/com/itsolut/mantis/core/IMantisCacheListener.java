@@ -0,0 +1,21 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+/**
+ * Receives notifications about new {@link MantisCacheData} published by a {@link MantisCache}
+ */
+public interface IMantisCacheListener {
+
+    /**
+     * Invoked after new cache data has been published, on the thread which published it
+     * 
+     * @param cacheData the published data
+     */
+    void cacheDataPublished(MantisCacheData cacheData);
+}
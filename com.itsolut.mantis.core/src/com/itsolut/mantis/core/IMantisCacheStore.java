@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+/**
+ * The {@link IMantisCacheStore} persists the {@link MantisCacheData} of individual repositories
+ * across sessions.
+ * 
+ * <p>Implementations are expected to load each repository's data separately, so that only the
+ * repositories actually used in a session pay the loading cost.</p>
+ */
+public interface IMantisCacheStore {
+
+    /**
+     * Loads the persisted cache data for a repository
+     * 
+     * @param repositoryUrl the repository url
+     * @return the cache data, or <code>null</code> if nothing usable was stored
+     */
+    MantisCacheData load(String repositoryUrl);
+
+    /**
+     * Persists the cache data for a repository, replacing any previously stored data
+     * 
+     * <p>Implementations must not leave partially written data behind if writing fails.</p>
+     * 
+     * @param repositoryUrl the repository url
+     * @param cacheData the cache data
+     * @return true if the data was persisted
+     */
+    boolean save(String repositoryUrl, MantisCacheData cacheData);
+
+    /**
+     * Removes the persisted cache data for a repository, if any
+     * 
+     * @param repositoryUrl the repository url
+     */
+    void remove(String repositoryUrl);
+}
@@ -60,6 +60,21 @@ public interface IMantisClient {
      */
     MantisTicket getTicket(int id, IProgressMonitor monitor) throws MantisException;
 
+    /**
+     * Gets ticket with <code>id</code>, reusing the locally stored issue if a recent search has shown that it
+     * is unchanged since it was stored
+     * 
+     * <p>Meant for synchronizing the results of the searches which were just run; a ticket which is requested
+     * explicitly should be retrieved with {@link #getTicket(int, IProgressMonitor)}.</p>
+     * 
+     * @param id
+     *            the id of the ticket to get
+     * @return the ticket
+     * @throws MantisException
+     *             thrown in case of a connection error
+     */
+    MantisTicket getSearchedTicket(int id, IProgressMonitor monitor) throws MantisException;
+
     /**
      * Queries tickets from repository. All found tickets are added to <code>result</code>.
      * 
@@ -72,6 +87,21 @@ public interface IMantisClient {
      */
     void search(MantisSearch query, List<MantisTicket> result, IProgressMonitor monitor) throws MantisException;
 
+    /**
+     * Queries tickets from repository, handing them to the <code>collector</code> one page at a time.
+     * 
+     * <p>The search ends once the limit of the <code>query</code> is reached, the repository has no
+     * further results or the <code>collector</code> asks to stop.</p>
+     * 
+     * @param query
+     *            the search criteria
+     * @param collector
+     *            receives the found tickets as they are retrieved
+     * @throws MantisException
+     *             thrown in case of a connection error, or when the collector fails
+     */
+    void search(MantisSearch query, IMantisTicketCollector collector, IProgressMonitor monitor) throws MantisException;
+
     /**
      * Validates the repository connection.
      * 
@@ -83,11 +113,22 @@ public interface IMantisClient {
     /**
      * Updates cached repository details: milestones, versions etc.
      * 
+     * <p>Only the {@link CacheSection sections} whose time-to-live has expired are fetched again.</p>
+     * 
      * @throws MantisException
      *             thrown in case of a connection error
      */
     void updateAttributes(IProgressMonitor monitor) throws MantisException;
 
+    /**
+     * Updates cached repository details: milestones, versions etc.
+     * 
+     * @param force if true, all sections are fetched again regardless of their time-to-live
+     * @throws MantisException
+     *             thrown in case of a connection error
+     */
+    void updateAttributes(IProgressMonitor monitor, boolean force) throws MantisException;
+
 	/**
 	 * Updates cached repository details linked to the ticket with the specified id
 	 * 
@@ -96,6 +137,14 @@ public interface IMantisClient {
 	 * @throws MantisException 
 	 */
 	void updateAttributesForTask(IProgressMonitor monitor, Integer ticketId) throws MantisException;
+
+    /**
+     * Starts refreshing the cached repository details in the background and returns immediately.
+     * 
+     * <p>Readers keep using the current cache data until the refresh completes. Does nothing if a background
+     * refresh is already running.</p>
+     */
+    void revalidateInBackground();
     
     byte[] getAttachmentData(int id, IProgressMonitor monitor) throws MantisException;
 
@@ -132,6 +181,20 @@ public interface IMantisClient {
      * @param cacheData
      */
     void setCacheData(MantisCacheData cacheData);
+
+    /**
+     * Sets the listener notified when the client publishes new cache data, e.g. after a refresh.
+     * 
+     * @param listener the listener, or <code>null</code> to remove the current one
+     */
+    void setCacheListener(IMantisCacheListener listener);
+
+    /**
+     * Sets the store used to reuse the data of issues which did not change since they were last retrieved.
+     * 
+     * @param issueStore the issue store, or <code>null</code> to always retrieve issues from the repository
+     */
+    void setIssueStore(IMantisIssueStore issueStore);
     
     boolean isTimeTrackingEnabled(IProgressMonitor monitor) throws MantisException;
     
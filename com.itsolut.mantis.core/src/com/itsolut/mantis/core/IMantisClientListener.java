@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+/**
+ * Receives notifications about the {@link IMantisClient} instances held by an {@link IMantisClientManager}
+ */
+public interface IMantisClientListener {
+
+    /**
+     * Invoked after the client of a repository has been discarded, e.g. since the repository was removed or
+     * its url or credentials changed
+     * 
+     * @param repositoryUrl the url of the repository
+     */
+    void clientRemoved(String repositoryUrl);
+}
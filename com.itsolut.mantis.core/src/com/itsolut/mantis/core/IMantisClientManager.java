@@ -30,4 +30,11 @@ public interface IMantisClientManager extends IShutdown {
      * @throws MantisException an error creating the repository
      */
     IMantisClient getRepository(TaskRepository taskRepository) throws MantisException;
+
+    /**
+     * Sets the listener notified when clients are discarded
+     * 
+     * @param listener the listener, or null to stop notifications
+     */
+    void setClientListener(IMantisClientListener listener);
 }
\ No newline at end of file
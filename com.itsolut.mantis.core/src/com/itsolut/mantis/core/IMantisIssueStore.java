@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.io.Serializable;
+
+/**
+ * The {@link IMantisIssueStore} keeps the full data of recently retrieved issues across sessions,
+ * so that unchanged issues need not be downloaded again.
+ * 
+ * <p>Each stored issue is tagged with its last update time, and only served for that exact time.</p>
+ */
+public interface IMantisIssueStore {
+
+    /**
+     * Loads a stored issue
+     * 
+     * @param repositoryUrl the repository url
+     * @param issueId the issue id
+     * @param lastUpdated the last update time of the issue as currently reported by the repository
+     * @return the issue, or <code>null</code> if it was not stored for the given last update time
+     */
+    Serializable load(String repositoryUrl, int issueId, long lastUpdated);
+
+    /**
+     * Stores an issue, replacing any previously stored version
+     * 
+     * <p>Implementations may evict other issues to stay within their size limits.</p>
+     * 
+     * @param repositoryUrl the repository url
+     * @param issueId the issue id
+     * @param lastUpdated the last update time of the issue
+     * @param issue the issue data
+     */
+    void save(String repositoryUrl, int issueId, long lastUpdated, Serializable issue);
+
+    /**
+     * Removes all stored issues of a repository
+     * 
+     * @param repositoryUrl the repository url
+     */
+    void remove(String repositoryUrl);
+}
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import com.itsolut.mantis.core.exception.MantisException;
+
+/**
+ * Loads the configuration of a single project the first time a {@link MantisCache} is asked for it
+ */
+public interface IMantisProjectLoader {
+
+    /**
+     * Retrieves the configuration of the project and publishes it to the cache before returning
+     * 
+     * @param projectId the id of the project
+     * @throws MantisException the configuration could not be retrieved
+     */
+    void loadProject(int projectId) throws MantisException;
+}
@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.Collection;
+
+import org.eclipse.mylyn.tasks.core.IRepositoryQuery;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * Supplies the queries defined for a repository, which are only reachable through the task list
+ */
+public interface IMantisQueryProvider {
+
+    /**
+     * @param repository the repository to list the queries for
+     * @return the Mantis queries belonging to the <tt>repository</tt>, never <code>null</code>
+     */
+    Collection<IRepositoryQuery> getQueries(TaskRepository repository);
+}
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.List;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.MantisTicket;
+
+/**
+ * Receives the results of a search as they are retrieved from the repository
+ */
+public interface IMantisTicketCollector {
+
+    /**
+     * @param tickets the tickets retrieved since the previous call, never empty
+     * @return true if the search should continue, false to stop it
+     * @throws MantisException the tickets could not be processed, which stops the search
+     */
+    boolean accept(List<MantisTicket> tickets) throws MantisException;
+}
@@ -11,12 +11,15 @@
 package com.itsolut.mantis.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.itsolut.mantis.core.exception.MantisException;
@@ -26,6 +29,11 @@ import com.itsolut.mantis.core.model.MantisTicket.Key;
 /**
  * Holds the cached information for a complete Mantis installations.
  * 
+ * <p>The data is kept in a {@link MantisCacheData} snapshot which is replaced atomically, so that
+ * readers never need to lock. Refreshes should populate a separate instance and publish the result
+ * using {@link #publishCacheData(MantisCacheData)}. Lookups which need more than one value read the
+ * snapshot once, so that they never combine values of two snapshots.</p>
+ * 
  * @author Robert Munteanu
  * 
  */
@@ -35,7 +43,17 @@ public class MantisCache {
 
     static final String BUILT_IN_PROJECT_TASKS_FILTER_FORMAT = "[Built-in] Latest %s tasks";
 
-    private MantisCacheData cacheData = new MantisCacheData();
+    private volatile MantisCacheData cacheData = new MantisCacheData();
+
+    /**
+     * Reporters registered since the last {@link #publishCacheData(MantisCacheData) publication}, which are
+     * added to the published data in case it was copied before they were registered
+     */
+    private final ListMultimap<Integer, MantisUser> pendingReporters = ArrayListMultimap.create();
+
+    private volatile IMantisCacheListener listener;
+
+    private volatile IMantisProjectLoader projectLoader;
 
     public void setProjects(List<MantisProject> projects) {
 
@@ -47,7 +65,7 @@ public class MantisCache {
         return cacheData.getProjects();
     }
 
-    public void cacheTimeTrackingEnabled(String stringValue) {
+    public synchronized void cacheTimeTrackingEnabled(String stringValue) {
         
         cacheData.timeTrackingEnabled = parseMantisBoolean(stringValue);
     }
@@ -57,32 +75,32 @@ public class MantisCache {
         return "1".equals(stringValue);
     }
 
-    public void cacheDueDateUpdateThreshold(int threshold) {
+    public synchronized void cacheDueDateUpdateThreshold(int threshold) {
 
         cacheData.dueDateUpdateThreshold = threshold;
     }
 
-    public void cacheDueDateViewThreshold(int threshold) {
+    public synchronized void cacheDueDateViewThreshold(int threshold) {
 
         cacheData.dueDateViewThreshold = threshold;
     }
     
-    public void cacheAssignedStatus(int status) {
+    public synchronized void cacheAssignedStatus(int status) {
 
         cacheData.bugAssignedStatus = status;
     }
 
-    public void cacheSubmitStatus(int status) {
+    public synchronized void cacheSubmitStatus(int status) {
         
         cacheData.bugSubmitStatus = status;
     }
 
-    public void cacheProjectVersions(int value, List<MantisVersion> projectVersions) {
+    public synchronized void cacheProjectVersions(int value, List<MantisVersion> projectVersions) {
 
         cacheData.getVersionsByProjectId().replaceValues(value, projectVersions);
     }
 
-    public void cacheProjectReporters(int projectId, List<MantisUser> projectUsers) {
+    public synchronized void cacheProjectReporters(int projectId, List<MantisUser> projectUsers) {
 
         cacheUsers0(projectUsers);
 
@@ -92,28 +110,27 @@ public class MantisCache {
     private void cacheUsers0(List<MantisUser> projectUsers) {
 
         for (MantisUser user : projectUsers)
-            cacheData.allUsers.put(user.getKey(), user);
-        
+            cacheData.putUser(user);
     }
 
-    public void cacheProjectDevelopers(int projectId, List<MantisUser> projectDevelopers) {
+    public synchronized void cacheProjectDevelopers(int projectId, List<MantisUser> projectDevelopers) {
 
         cacheUsers0(projectDevelopers);
 
         cacheData.getDevelopersByProjectId().replaceValues(projectId, projectDevelopers);
     }
 
-    public void cacheReporterThreshold(int threshold) {
+    public synchronized void cacheReporterThreshold(int threshold) {
 
         cacheData.setReporterThreshold(threshold);
     }
 
-    public void cacheDeveloperThreshold(int threshold) {
+    public synchronized void cacheDeveloperThreshold(int threshold) {
 
         cacheData.setDeveloperThreshold(threshold);
     }
 
-    public void cacheProjectCategories(int projectId, String[] projectCategories) {
+    public synchronized void cacheProjectCategories(int projectId, String[] projectCategories) {
 
         List<MantisProjectCategory> categories = new ArrayList<MantisProjectCategory>();
 
@@ -127,62 +144,68 @@ public class MantisCache {
 
     }
 
-    public void cacheViewStates(List<MantisViewState> viewStates) {
+    public synchronized void cacheViewStates(List<MantisViewState> viewStates) {
 
         
         this.cacheData.viewStates = Lists.newArrayList(viewStates);
-
+        cacheData.invalidateIndex();
     }
 
-    public void cacheEtas(List<MantisETA> etas) {
+    public synchronized void cacheEtas(List<MantisETA> etas) {
 
         this.cacheData.etas = Lists.newArrayList(etas);
-
+        cacheData.invalidateIndex();
     }
 
-    public void cacheProjections(List<MantisProjection> projects) {
+    public synchronized void cacheProjections(List<MantisProjection> projects) {
 
 
         this.cacheData.projections = Lists.newArrayList(projects);
+        cacheData.invalidateIndex();
     }
 
-    public void cacheReproducibilites(List<MantisReproducibility> reproducibilities) {
+    public synchronized void cacheReproducibilites(List<MantisReproducibility> reproducibilities) {
 
         this.cacheData.reproducibilities = Lists.newArrayList(reproducibilities);
+        cacheData.invalidateIndex();
     }
 
-    public void cacheResolutions(List<MantisResolution> resolutions) {
+    public synchronized void cacheResolutions(List<MantisResolution> resolutions) {
 
         this.cacheData.resolutions = Lists.newArrayList(resolutions);
+        cacheData.invalidateIndex();
     }
 
-    public void cacheSeverities(List<MantisSeverity> severities) {
+    public synchronized void cacheSeverities(List<MantisSeverity> severities) {
 
         this.cacheData.severities = Lists.newArrayList(severities);
+        cacheData.invalidateIndex();
     }
 
-    public void cacheStatuses(List<MantisTicketStatus> statuses) {
+    public synchronized void cacheStatuses(List<MantisTicketStatus> statuses) {
 
         this.cacheData.statuses = Lists.newArrayList(statuses);
+        cacheData.invalidateIndex();
     }
 
-    public void cachePriorities(List<MantisPriority> prios) {
+    public synchronized void cachePriorities(List<MantisPriority> prios) {
 
         cacheData.priorities = Lists.newArrayList(prios);
+        cacheData.invalidateIndex();
     }
 
-    public void cacheResolvedStatus(String resolvedStatus) {
+    public synchronized void cacheResolvedStatus(String resolvedStatus) {
 
         this.cacheData.resolvedStatus = Integer.parseInt(resolvedStatus);
 
     }
 
-    public void cacheProjects(List<MantisProject> projectData) {
+    public synchronized void cacheProjects(List<MantisProject> projectData) {
 
         cacheData.setProjects(Lists.newArrayList(projectData));
     }
 
-    public void cacheFilters(int projectId, List<MantisProjectFilter> projectFilters) throws MantisException {
+    public synchronized void cacheFilters(int projectId, List<MantisProjectFilter> projectFilters) throws MantisException {
 
         List<MantisProjectFilter> filters = new ArrayList<MantisProjectFilter>();
 
@@ -201,22 +224,42 @@ public class MantisCache {
         return new MantisProjectFilter(filterDisplayName, BUILT_IN_PROJECT_TASKS_FILTER_ID, null, projectId);
     }
 
-    public void cacheProjectCustomFields(int projectId, List<MantisCustomField> customFieldData) {
+    public synchronized void cacheProjectCustomFields(int projectId, List<MantisCustomField> customFieldData) {
 
         cacheData.getCustomFieldsByProjectId().replaceValues(projectId, customFieldData);
-
+        cacheData.invalidateIndex();
     }
 
-    public void cacheRepositoryVersion(String version) throws MantisException {
+    public synchronized void cacheRepositoryVersion(String version) throws MantisException {
 
         this.cacheData.repositoryVersion = RepositoryVersion.fromVersionString(version);
     }
 
-    public void cacheDefaultAttributeValue(Key attribute, int readValue) {
+    public synchronized void cacheDefaultAttributeValue(Key attribute, int readValue) {
 
         cacheData.putDefaultValueForAttribute(attribute, readValue);
     }
-    
+
+    public synchronized void cacheDefaultStringAttributeValue(Key attribute, String readValue) {
+
+        cacheData.putDefaultValueForStringAttribute(attribute, readValue);
+    }
+
+    public synchronized void cacheBugResolutionFixedThreshold(int threshold) {
+
+        cacheData.setBugResolutionFixedThreshold(threshold);
+    }
+
+    public synchronized void cacheEtaEnabled(boolean etaEnabled) {
+
+        cacheData.setEtaEnabled(etaEnabled);
+    }
+
+    public synchronized void cacheProjectionEnabled(boolean projectionEnabled) {
+
+        cacheData.setProjectionEnabled(projectionEnabled);
+    }
+
     public RepositoryVersion getRepositoryVersion() {
 
         return cacheData.repositoryVersion;
@@ -227,9 +270,9 @@ public class MantisCache {
         if ( MantisProject.ALL_PROJECTS.getName().equals(projectName) )
             return MantisProject.ALL_PROJECTS.getValue();
 
-        for (MantisProject mantisProject : cacheData.getProjects())
-            if (mantisProject.getName().equals(projectName))
-                return mantisProject.getValue();
+        MantisProject project = cacheData.getIndex().projectsByName.get(projectName);
+        if (project != null)
+            return project.getValue();
 
         throw new MantisException("No project with the name " + projectName + " .");
     }
@@ -246,72 +289,112 @@ public class MantisCache {
 
     public MantisResolution getResolution(int intValue) throws MantisException {
 
-        for (MantisResolution resolution : cacheData.resolutions)
-            if (resolution.getValue() == intValue)
-                return resolution;
+        return getResolution(cacheData, intValue);
+    }
+
+    private static MantisResolution getResolution(MantisCacheData data, int intValue) throws MantisException {
+
+        MantisResolution resolution = data.getIndex().resolutionsById.get(intValue);
+        if (resolution != null)
+            return resolution;
 
         throw new MantisException("No resolution with id " + intValue + " .");
     }
 
     public MantisPriority getPriority(int intValue) throws MantisException {
 
-        for (MantisPriority priority : cacheData.priorities)
-            if (priority.getValue() == intValue)
-                return priority;
+        return getPriority(cacheData, intValue);
+    }
+
+    private static MantisPriority getPriority(MantisCacheData data, int intValue) throws MantisException {
+
+        MantisPriority priority = data.getIndex().prioritiesById.get(intValue);
+        if (priority != null)
+            return priority;
 
         throw new MantisException("No priority with id " + intValue + " .");
     }
 
     public MantisSeverity getSeverity(int intValue) throws MantisException {
 
-        for (MantisSeverity severity : cacheData.severities)
-            if (severity.getValue() == intValue)
-                return severity;
+        return getSeverity(cacheData, intValue);
+    }
+
+    private static MantisSeverity getSeverity(MantisCacheData data, int intValue) throws MantisException {
+
+        MantisSeverity severity = data.getIndex().severitiesById.get(intValue);
+        if (severity != null)
+            return severity;
 
         throw new MantisException("No severity with id " + intValue + " .");
     }
 
     public MantisTicketStatus getStatus(int intValue) throws MantisException {
 
-        for (MantisTicketStatus status : cacheData.statuses)
-            if (status.getValue() == intValue)
-                return status;
+        return getStatus(cacheData, intValue);
+    }
+
+    private static MantisTicketStatus getStatus(MantisCacheData data, int intValue) throws MantisException {
+
+        MantisTicketStatus status = data.getIndex().statusesById.get(intValue);
+        if (status != null)
+            return status;
 
         throw new MantisException("No status with id " + intValue + " .");
     }
 
     public MantisReproducibility getReproducibility(int reproducibilityId) throws MantisException {
         
-        for (MantisReproducibility reproducibility : cacheData.reproducibilities)
-            if (reproducibility.getValue() == reproducibilityId )
-                return reproducibility;
+        return getReproducibility(cacheData, reproducibilityId);
+    }
+
+    private static MantisReproducibility getReproducibility(MantisCacheData data, int reproducibilityId) throws MantisException {
+        
+        MantisReproducibility reproducibility = data.getIndex().reproducibilitiesById.get(reproducibilityId);
+        if (reproducibility != null)
+            return reproducibility;
         
         throw new MantisException("No reproducibility with id " + reproducibilityId + " .");
     }
 
     public MantisProjection getProjection(int projectionId) throws MantisException {
         
-        for (MantisProjection projection : cacheData.projections)
-            if (projection.getValue() == projectionId )
-                return projection;
+        return getProjection(cacheData, projectionId);
+    }
+
+    private static MantisProjection getProjection(MantisCacheData data, int projectionId) throws MantisException {
+        
+        MantisProjection projection = data.getIndex().projectionsById.get(projectionId);
+        if (projection != null)
+            return projection;
         
         throw new MantisException("No projection with id " + projectionId + " .");
     }
 
     public MantisETA getETA(int etaId) throws MantisException {
         
-        for (MantisETA eta : cacheData.etas)
-            if (eta.getValue() == etaId )
-                return eta;
+        return getETA(cacheData, etaId);
+    }
+
+    private static MantisETA getETA(MantisCacheData data, int etaId) throws MantisException {
+        
+        MantisETA eta = data.getIndex().etasById.get(etaId);
+        if (eta != null)
+            return eta;
         
         throw new MantisException("No eta with id " + etaId + " .");
     }
 
     public MantisViewState getViewState(int viewStateId) throws MantisException {
         
-        for (MantisViewState viewState : cacheData.viewStates)
-            if (viewState.getValue() == viewStateId)
-                return viewState;
+        return getViewState(cacheData, viewStateId);
+    }
+
+    private static MantisViewState getViewState(MantisCacheData data, int viewStateId) throws MantisException {
+        
+        MantisViewState viewState = data.getIndex().viewStatesById.get(viewStateId);
+        if (viewState != null)
+            return viewState;
         
         throw new MantisException("No viewState with name " + viewStateId + " .");
     }
@@ -319,9 +402,11 @@ public class MantisCache {
     public MantisCustomField getCustomFieldByProjectIdAndFieldName(int projectId, String customFieldName)
             throws MantisException {
 
-        for (MantisCustomField customField : getCustomFieldsByProjectId(projectId))
-            if (customField.getName().equals(customFieldName))
-                return customField;
+        ensureProjectLoaded(projectId);
+
+        Map<String, MantisCustomField> customFields = cacheData.getIndex().customFieldsByProjectId.get(projectId);
+        if (customFields != null && customFields.containsKey(customFieldName))
+            return customFields.get(customFieldName);
 
         throw new MantisException("No custom field with name " + customFieldName + " for the project with id "
                 + projectId + " .");
@@ -329,6 +414,8 @@ public class MantisCache {
 
     private List<MantisCustomField> getCustomFieldsByProjectId(int projectId) throws MantisException {
 
+        ensureProjectLoaded(projectId);
+
         return cacheData.getCustomFieldsByProjectId().get(projectId);
     }
 
@@ -339,9 +426,9 @@ public class MantisCache {
 
     public MantisTicketStatus getStatusByName(String statusName) throws MantisException {
 
-        for (MantisTicketStatus status : cacheData.statuses)
-            if (status.getName().equals(statusName))
-                return status;
+        MantisTicketStatus status = cacheData.getIndex().statusesByName.get(statusName);
+        if (status != null)
+            return status;
 
         throw new MantisException("No status with name " + statusName + " .");
     }
@@ -353,42 +440,58 @@ public class MantisCache {
 
     public MantisSeverity[] getSeverities() {
 
-        return cacheData.severities.toArray(new MantisSeverity[cacheData.severities.size()]);
+        List<MantisSeverity> severities = cacheData.severities;
+
+        return severities.toArray(new MantisSeverity[severities.size()]);
     }
 
     public MantisResolution[] getTicketResolutions() {
 
-        return cacheData.resolutions.toArray(new MantisResolution[cacheData.resolutions.size()]);
+        List<MantisResolution> resolutions = cacheData.resolutions;
+
+        return resolutions.toArray(new MantisResolution[resolutions.size()]);
     }
 
     public MantisTicketStatus[] getTicketStatus() {
 
-        return cacheData.statuses.toArray(new MantisTicketStatus[cacheData.statuses.size()]);
+        List<MantisTicketStatus> statuses = cacheData.statuses;
+
+        return statuses.toArray(new MantisTicketStatus[statuses.size()]);
     }
 
     public MantisPriority[] getPriorities() {
 
-        return cacheData.priorities.toArray(new MantisPriority[cacheData.priorities.size()]);
+        List<MantisPriority> priorities = cacheData.priorities;
+
+        return priorities.toArray(new MantisPriority[priorities.size()]);
     }
 
     public MantisReproducibility[] getReproducibility() {
 
-        return cacheData.reproducibilities.toArray(new MantisReproducibility[cacheData.reproducibilities.size()]);
+        List<MantisReproducibility> reproducibilities = cacheData.reproducibilities;
+
+        return reproducibilities.toArray(new MantisReproducibility[reproducibilities.size()]);
     }
 
     public MantisProjection[] getProjection() {
 
-        return cacheData.projections.toArray(new MantisProjection[cacheData.projections.size()]);
+        List<MantisProjection> projections = cacheData.projections;
+
+        return projections.toArray(new MantisProjection[projections.size()]);
     }
 
     public MantisETA[] getETA() {
 
-        return cacheData.etas.toArray(new MantisETA[cacheData.etas.size()]);
+        List<MantisETA> etas = cacheData.etas;
+
+        return etas.toArray(new MantisETA[etas.size()]);
     }
 
     public MantisViewState[] getViewState() {
 
-        return cacheData.viewStates.toArray(new MantisViewState[cacheData.viewStates.size()]);
+        List<MantisViewState> viewStates = cacheData.viewStates;
+
+        return viewStates.toArray(new MantisViewState[viewStates.size()]);
     }
 
     public MantisProject getProjectByName(String projectName) throws MantisException {
@@ -396,18 +499,23 @@ public class MantisCache {
         if ( MantisProject.ALL_PROJECTS.getName().equals(projectName) )
             return MantisProject.ALL_PROJECTS;
 
-        for (MantisProject project : cacheData.getProjects())
-            if (project.getName().equals(projectName))
-                return project;
+        MantisProject project = cacheData.getIndex().projectsByName.get(projectName);
+        if (project != null)
+            return project;
 
         throw new MantisException("No project with name " + projectName + " .");
     }
 
     public MantisProject getProjectById(int projectId) throws MantisException {
 
-        for (MantisProject project : cacheData.getProjects())
-            if (project.getValue() == projectId)
-                return project;
+        return getProjectById(cacheData, projectId);
+    }
+
+    private static MantisProject getProjectById(MantisCacheData data, int projectId) throws MantisException {
+
+        MantisProject project = data.getIndex().projectsById.get(projectId);
+        if (project != null)
+            return project;
 
         throw new MantisException("No project with id " + projectId + " .");
     }
@@ -420,6 +528,8 @@ public class MantisCache {
         if ( projectId == MantisProject.ALL_PROJECTS.getValue() )
             return getProjectFiltersForAllProject();
 
+        ensureProjectLoaded(projectId);
+
         return cacheData.getProjectFiltersById().get(projectId);
     }
     
@@ -437,6 +547,7 @@ public class MantisCache {
     public List<MantisProjectCategory> getProjectCategories(String projectName) throws MantisException {
 
         int projectId = getProjectId(projectName);
+        ensureProjectLoaded(projectId);
         List<MantisProjectCategory> categories = cacheData.categoriesByProjectId.get(projectId);
 
         if (categories == null)
@@ -448,6 +559,7 @@ public class MantisCache {
     public MantisUser[] getDevelopersByProjectName(String projectName, IProgressMonitor monitor) throws MantisException {
 
         int projectId = getProjectId(projectName);
+        ensureProjectLoaded(projectId);
 
         List<MantisUser> developers = cacheData.getDevelopersByProjectId().get(projectId);
 
@@ -458,6 +570,7 @@ public class MantisCache {
     public MantisUser[] getUsersByProjectName(String projectName, IProgressMonitor monitor) throws MantisException {
 
         int projectId = getProjectId(projectName);
+        ensureProjectLoaded(projectId);
 
         List<MantisUser> reporters = cacheData.getReportersByProjectId().get(projectId);
 
@@ -481,6 +594,7 @@ public class MantisCache {
     public MantisVersion[] getVersionsByProjectName(String projectName) throws MantisException {
 
         int projectId = getProjectId(projectName);
+        ensureProjectLoaded(projectId);
 
         List<MantisVersion> versions = cacheData.getVersionsByProjectId().get(projectId);
 
@@ -492,96 +606,116 @@ public class MantisCache {
     
     public MantisTicketStatus getSubmitStatus() throws MantisException {
 
-        return getStatus(cacheData.bugSubmitStatus);
+        MantisCacheData data = cacheData;
+
+        return getStatus(data, data.bugSubmitStatus);
     }
     
     public MantisTicketStatus getAssignedStatus() throws MantisException {
 
-        return getStatus(cacheData.bugAssignedStatus);
+        MantisCacheData data = cacheData;
+
+        return getStatus(data, data.bugAssignedStatus);
     }        
 
     public String getResolvedStatusName() throws MantisException {
         
-        for ( MantisTicketStatus status : cacheData.statuses)
-            if ( status.getValue() == cacheData.resolvedStatus)
-                return status.getName();
+        MantisCacheData data = cacheData;
+
+        MantisTicketStatus status = data.getIndex().statusesById.get(data.resolvedStatus);
+        if ( status != null )
+            return status.getName();
         
-        throw new MantisException("No status with id " + cacheData.resolvedStatus + " .");
+        throw new MantisException("No status with id " + data.resolvedStatus + " .");
     }
 
     public MantisSeverity getDefaultSeverity() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getSeverity(cacheData.getDefaultValueForAttribute(Key.SEVERITY));
+            return getSeverity(data, data.getDefaultValueForAttribute(Key.SEVERITY));
         } catch (MantisException e) {
-            if ( cacheData.severities.size() > 0 )
-                return cacheData.severities.get(0);
+            if ( data.severities.size() > 0 )
+                return data.severities.get(0);
             return null;
         }
     }
     
     public MantisPriority getDefaultPriority() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getPriority(cacheData.getDefaultValueForAttribute(Key.PRIORITY));
+            return getPriority(data, data.getDefaultValueForAttribute(Key.PRIORITY));
         } catch (MantisException e) {
-            if ( cacheData.priorities.size() > 0 )
-                return cacheData.priorities.get(0);
+            if ( data.priorities.size() > 0 )
+                return data.priorities.get(0);
             return null;
         }
     }
     
     public MantisETA getDefaultEta() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getETA(cacheData.getDefaultValueForAttribute(Key.ETA));
+            return getETA(data, data.getDefaultValueForAttribute(Key.ETA));
         } catch (MantisException e) {
-            if ( cacheData.etas.size() > 0 )
-                return cacheData.etas.get(0);
+            if ( data.etas.size() > 0 )
+                return data.etas.get(0);
             return null;
         }
     }
 
     public MantisProjection getDefaultProjection() throws MantisException {
 
+        MantisCacheData data = cacheData;
+
         try {
-            return getProjection(cacheData.getDefaultValueForAttribute(Key.PROJECTION));
+            return getProjection(data, data.getDefaultValueForAttribute(Key.PROJECTION));
         } catch (MantisException e) {
-            if ( cacheData.projections.size() > 0 )
-                return cacheData.projections.get(0);
+            if ( data.projections.size() > 0 )
+                return data.projections.get(0);
             return null;
         }
     }
     
     public MantisResolution getDefaultResolution() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getResolution(cacheData.getDefaultValueForAttribute(Key.RESOLUTION));
+            return getResolution(data, data.getDefaultValueForAttribute(Key.RESOLUTION));
         } catch (MantisException e) {
-            if ( cacheData.resolutions.size() > 0 )
-                return cacheData.resolutions.get(0);
+            if ( data.resolutions.size() > 0 )
+                return data.resolutions.get(0);
             return null;
         }
     }
     
     public MantisReproducibility getDefaultReproducibility() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getReproducibility(cacheData.getDefaultValueForAttribute(Key.REPRODUCIBILITY));
+            return getReproducibility(data, data.getDefaultValueForAttribute(Key.REPRODUCIBILITY));
         } catch (MantisException e) {
-            if ( cacheData.reproducibilities.size() > 0 )
-                return cacheData.reproducibilities.get(0);
+            if ( data.reproducibilities.size() > 0 )
+                return data.reproducibilities.get(0);
             return null;
         }
     }
     
     public MantisViewState getDefaultViewState() throws MantisException {
         
+        MantisCacheData data = cacheData;
+
         try {
-            return getViewState(cacheData.getDefaultValueForAttribute(Key.VIEW_STATE));
+            return getViewState(data, data.getDefaultValueForAttribute(Key.VIEW_STATE));
         } catch (MantisException e) {
-            if ( cacheData.viewStates.size() > 0 )
-                return cacheData.viewStates.get(0);
+            if ( data.viewStates.size() > 0 )
+                return data.viewStates.get(0);
             return null;
         }
     }
@@ -598,7 +732,9 @@ public class MantisCache {
     
     public MantisResolution getBugResolutionFixedThreshold() throws MantisException {
     	
-    	return getResolution(cacheData.getBugResolutionFixedThreshold());
+    	MantisCacheData data = cacheData;
+
+    	return getResolution(data, data.getBugResolutionFixedThreshold());
     }
     
     public boolean isEtaEnabled() {
@@ -616,11 +752,68 @@ public class MantisCache {
         return cacheData;
     }
 
-    public void setCacheData(MantisCacheData cacheData) {
+    public synchronized void setCacheData(MantisCacheData cacheData) {
 
         this.cacheData = cacheData;
     }
 
+    /**
+     * Replaces the current data with newly retrieved data, marking it as not yet persisted
+     * 
+     * @param cacheData the new data, which must not be modified afterwards
+     */
+    public void publishCacheData(MantisCacheData cacheData) {
+
+        synchronized (this) {
+            // the data may have been copied before these reporters were registered
+            for (Map.Entry<Integer, MantisUser> pending : pendingReporters.entries())
+                if (!containsUser(cacheData.getReportersByProjectId().get(pending.getKey()), pending.getValue()))
+                    addReporter(cacheData, pending.getKey(), pending.getValue());
+            pendingReporters.clear();
+
+            cacheData.markDirty();
+            this.cacheData = cacheData;
+        }
+        fireCacheDataPublished(cacheData);
+    }
+
+    public void setListener(IMantisCacheListener listener) {
+
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the loader used to retrieve the configuration of projects which were not loaded yet
+     * 
+     * @param projectLoader the loader, or <code>null</code> if all projects are loaded up front
+     */
+    public void setProjectLoader(IMantisProjectLoader projectLoader) {
+
+        this.projectLoader = projectLoader;
+    }
+
+    private void ensureProjectLoaded(int projectId) throws MantisException {
+
+        IMantisProjectLoader loader = projectLoader;
+        MantisCacheData data = cacheData;
+        if ( loader == null || data.isProjectLoaded(projectId) )
+            return;
+
+        // unknown projects are reported by the lookups themselves
+        if ( !data.getIndex().projectsById.containsKey(projectId) )
+            return;
+
+        loader.loadProject(projectId);
+    }
+
+    private void fireCacheDataPublished(MantisCacheData cacheData) {
+
+        // invoked without holding a lock, listeners may call back into other components
+        IMantisCacheListener current = listener;
+        if ( current != null )
+            current.cacheDataPublished(cacheData);
+    }
+
     /**
      * Since for large user counts the reporter retrieval fails, we provide a hook for registering
      * additional reporter users as they are discovered, e.g. in IssueData
@@ -632,24 +825,80 @@ public class MantisCache {
      */
     public void registerAdditionalReporter(int projectId, MantisUser user) {
         
-        // empty account
-        if ( user.getValue() == 0 )
-            return;
+        registerAdditionalReporters(projectId, Collections.singletonList(user));
+    }
+
+    /**
+     * Registers a batch of additional reporters, see {@link #registerAdditionalReporter(int, MantisUser)}
+     * 
+     * <p>The current snapshot is only replaced if at least one of the users is not yet known as a
+     * reporter for the project.</p>
+     * 
+     * @param projectId
+     *            the project id
+     * @param users
+     *            the discovered users
+     */
+    public void registerAdditionalReporters(int projectId, List<MantisUser> users) {
+
+        MantisCacheData updated;
         
-        cacheData.allUsers.put(user.getKey(), user);
+        synchronized (this) {
+            
+            MantisCacheData current = cacheData;
+            
+            List<MantisUser> newReporters = new ArrayList<MantisUser>();
+            for ( MantisUser user : users ) {
+                
+                // empty account
+                if ( user.getValue() == 0 )
+                    continue;
+                
+                if ( containsUser(current.getReportersByProjectId().get(projectId), user) || containsUser(newReporters, user) )
+                    continue;
+                
+                newReporters.add(user);
+            }
+            
+            if ( newReporters.isEmpty() )
+                return;
+            
+            updated = current.copy();
+            for ( MantisUser user : newReporters ) {
+                addReporter(updated, projectId, user);
+                pendingReporters.put(projectId, user);
+            }
+            
+            updated.markDirty();
+            cacheData = updated;
+        }
         
-        if ( cacheData.getReportersByProjectId().containsEntry(projectId, user) )
-            return;
+        fireCacheDataPublished(updated);
+    }
+    
+    private static void addReporter(MantisCacheData data, int projectId, MantisUser user) {
+
+        data.putUser(user);
+        data.getReportersByProjectId().put(projectId, user);
+    }
+
+    private static boolean containsUser(List<MantisUser> users, MantisUser user) {
+
+        for ( MantisUser candidate : users )
+            if ( candidate.getValue() == user.getValue() )
+                return true;
         
-        cacheData.getReportersByProjectId().put(projectId, user);
+        return false;
     }
 
     public boolean dueDateIsEnabled() {
         
-        return cacheData.dueDateViewThreshold < DefaultConstantValues.Role.NOBODY.getValue() && cacheData.dueDateUpdateThreshold < DefaultConstantValues.Role.NOBODY.getValue();
+        MantisCacheData data = cacheData;
+
+        return data.dueDateViewThreshold < DefaultConstantValues.Role.NOBODY.getValue() && data.dueDateUpdateThreshold < DefaultConstantValues.Role.NOBODY.getValue();
     }
 
-    public void copyReportersFromDevelopers(int projectId) {
+    public synchronized void copyReportersFromDevelopers(int projectId) {
 
         cacheData.getReportersByProjectId().replaceValues(projectId, cacheData.getDevelopersByProjectId().get(projectId));
     }
@@ -661,14 +910,12 @@ public class MantisCache {
      */
     public String getUserNameById(int userId) {
 
-        for ( MantisUser user : cacheData.allUsers.values() )
-            if ( user.getValue() == userId )
-                return user.getKey();
+        MantisUser user = cacheData.getUserById(userId);
                 
-        return null;
+        return user != null ? user.getKey() : null;
     }
     
-    public void cacheTags(List<MantisTag> tags) {
+    public synchronized void cacheTags(List<MantisTag> tags) {
         
         Map<Integer, MantisTag> tagsById = Maps.newHashMapWithExpectedSize(tags.size());
         for ( MantisTag tag : tags )
@@ -683,7 +930,7 @@ public class MantisCache {
     }
 
 
-    public void cacheEnableProfiles(boolean enableProfiles) {
+    public synchronized void cacheEnableProfiles(boolean enableProfiles) {
 
         cacheData.setEnableProfiles(enableProfiles);
     }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Persists newly published repository cache data in the background
+ * 
+ * <p>A checkpoint is written a fixed delay after the first change to a repository's cache data, so that
+ * a burst of changes results in a single write of the latest data. Only data which is still
+ * {@link MantisCacheData#isDirty() dirty} when the delay expires is written.</p>
+ */
+class MantisCacheCheckpointer {
+
+    static final long DEFAULT_DEBOUNCE_MILLIS = 10000;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final IMantisCacheStore cacheStore;
+
+    private final long debounceMillis;
+
+    private final Tracer tracer;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Map<String, MantisCacheData> pending = new HashMap<String, MantisCacheData>();
+
+    MantisCacheCheckpointer(IMantisCacheStore cacheStore, long debounceMillis, Tracer tracer) {
+
+        this.cacheStore = cacheStore;
+        this.debounceMillis = debounceMillis;
+        this.tracer = tracer;
+
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("Mantis cache checkpointer")
+                .setDaemon(true).build());
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Schedules a checkpoint of the data, unless one is already scheduled for the repository in which case
+     * that checkpoint will write this data instead
+     * 
+     * @param repositoryUrl the repository url
+     * @param cacheData the data to persist
+     */
+    synchronized void schedule(final String repositoryUrl, MantisCacheData cacheData) {
+
+        if (executor.isShutdown())
+            return;
+
+        boolean scheduled = pending.containsKey(repositoryUrl);
+
+        pending.put(repositoryUrl, cacheData);
+
+        if (scheduled)
+            return;
+
+        executor.schedule(new Runnable() {
+
+            public void run() {
+
+                checkpoint(repositoryUrl);
+            }
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending checkpoint for a repository. Once this method returns no further data will be written for
+     * the repository unless a new checkpoint is scheduled.
+     * 
+     * @param repositoryUrl the repository url
+     */
+    synchronized void cancel(String repositoryUrl) {
+
+        pending.remove(repositoryUrl);
+    }
+
+    /**
+     * Stops writing checkpoints, waiting for a write in progress to complete
+     * 
+     * <p>Pending checkpoints are dropped, so callers should persist any data which is still dirty.</p>
+     */
+    void shutdown() {
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            pending.clear();
+        }
+    }
+
+    private synchronized void checkpoint(String repositoryUrl) {
+
+        MantisCacheData cacheData = pending.remove(repositoryUrl);
+        if (cacheData == null || !cacheData.isDirty())
+            return;
+
+        long start = System.currentTimeMillis();
+
+        if (cacheStore.save(repositoryUrl, cacheData))
+            cacheData.markClean();
+
+        tracer.trace(TraceLocation.CLIENT_MANAGER, "Checkpointed cache for {0} in {1} ms.", repositoryUrl,
+                System.currentTimeMillis() - start);
+    }
+}
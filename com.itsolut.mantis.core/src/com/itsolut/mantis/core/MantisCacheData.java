@@ -22,8 +22,14 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.itsolut.mantis.core.model.*;
+import com.itsolut.mantis.core.util.IntHashMap;
 
 /**
+ * Holds the configuration data of a Mantis installation
+ * 
+ * <p>Instances published through {@link MantisCache} are treated as immutable snapshots; changes
+ * are made on a {@link #copy()} which then replaces the published instance.</p>
+ * 
  * @author Robert Munteanu
  *
  */
@@ -82,11 +88,11 @@ public class MantisCacheData implements Serializable {
     
     int bugAssignedStatus;
     
-    private Map<MantisTicket.Key, Integer> defaultValuesForAttributes = new EnumMap<MantisTicket.Key, Integer>(MantisTicket.Key.class);
+    Map<MantisTicket.Key, Integer> defaultValuesForAttributes = new EnumMap<MantisTicket.Key, Integer>(MantisTicket.Key.class);
 
-    private Map<MantisTicket.Key, String> defaultStringValuesForAttributes = new EnumMap<MantisTicket.Key, String>(MantisTicket.Key.class);
+    Map<MantisTicket.Key, String> defaultStringValuesForAttributes = new EnumMap<MantisTicket.Key, String>(MantisTicket.Key.class);
     
-    private Map<Integer, MantisTag> tagsById;  
+    Map<Integer, MantisTag> tagsById;  
 
 	private int bugResolutionFixedThreshold;
 	
@@ -96,13 +102,208 @@ public class MantisCacheData implements Serializable {
 	
 	Map<String, MantisUser> allUsers = new HashMap<String, MantisUser>();
 
+    /**
+     * Reverse index of {@link #allUsers}, rebuilt when deserializing
+     */
+    private transient IntHashMap<MantisUser> usersById = new IntHashMap<MantisUser>();
+
     private boolean enableProfiles;
+
+    /**
+     * The time each section was last refreshed, keyed by project id; global sections use
+     * {@link MantisProject#ALL_PROJECTS}
+     */
+    private Map<Integer, Map<CacheSection, Long>> sectionRefreshTimes = new HashMap<Integer, Map<CacheSection, Long>>();
+
+    private transient volatile MantisCacheIndex index;
+
+    private transient volatile boolean dirty;
+	
+    /**
+     * Creates a copy of this instance which can be modified without affecting the original
+     * 
+     * <p>All collections are copied, while the model objects they hold are shared.</p>
+     * 
+     * @return the copy
+     */
+    public MantisCacheData copy() {
+
+        MantisCacheData copy = new MantisCacheData();
+        
+        copy.lastUpdate = lastUpdate;
+        copy.projects = new ArrayList<MantisProject>(projects);
+        copy.getProjectFiltersById().putAll(getProjectFiltersById());
+        copy.getCustomFieldsByProjectId().putAll(getCustomFieldsByProjectId());
+        copy.getVersionsByProjectId().putAll(getVersionsByProjectId());
+        copy.getReportersByProjectId().putAll(getReportersByProjectId());
+        copy.getDevelopersByProjectId().putAll(getDevelopersByProjectId());
+        copy.repositoryVersion = repositoryVersion;
+        copy.resolvedStatus = resolvedStatus;
+        copy.priorities = copyOf(priorities);
+        copy.statuses = copyOf(statuses);
+        copy.severities = copyOf(severities);
+        copy.resolutions = copyOf(resolutions);
+        copy.reproducibilities = copyOf(reproducibilities);
+        copy.projections = copyOf(projections);
+        copy.etas = copyOf(etas);
+        copy.viewStates = copyOf(viewStates);
+        copy.categoriesByProjectId = new HashMap<Integer, List<MantisProjectCategory>>(categoriesByProjectId);
+        copy.reporterThreshold = reporterThreshold;
+        copy.developerThreshold = developerThreshold;
+        copy.dueDateUpdateThreshold = dueDateUpdateThreshold;
+        copy.dueDateViewThreshold = dueDateViewThreshold;
+        copy.timeTrackingEnabled = timeTrackingEnabled;
+        copy.bugSubmitStatus = bugSubmitStatus;
+        copy.bugAssignedStatus = bugAssignedStatus;
+        copy.defaultValuesForAttributes.putAll(defaultValuesForAttributes);
+        copy.defaultStringValuesForAttributes.putAll(defaultStringValuesForAttributes);
+        if ( tagsById != null )
+            copy.tagsById = new HashMap<Integer, MantisTag>(tagsById);
+        copy.bugResolutionFixedThreshold = bugResolutionFixedThreshold;
+        copy.etaEnabled = etaEnabled;
+        copy.projectionEnabled = projectionEnabled;
+        copy.allUsers = new HashMap<String, MantisUser>(allUsers);
+        copy.usersById = new IntHashMap<MantisUser>(usersById);
+        copy.enableProfiles = enableProfiles;
+        for ( Map.Entry<Integer, Map<CacheSection, Long>> entry : sectionRefreshTimes.entrySet() )
+            copy.sectionRefreshTimes.put(entry.getKey(), new EnumMap<CacheSection, Long>(entry.getValue()));
+        
+        return copy;
+    }
+    
+    private static <T> List<T> copyOf(List<T> list) {
+
+        return list == null ? null : new ArrayList<T>(list);
+    }
+	
+    /**
+     * Adds or replaces a known user, keeping the username and id lookups in sync
+     * 
+     * @param user the user
+     */
+    void putUser(MantisUser user) {
+
+        allUsers.put(user.getKey(), user);
+        usersById.put(user.getValue(), user);
+    }
+
+    /**
+     * @param userId the user id
+     * @return the matching user, possibly <code>null</code>
+     */
+    MantisUser getUserById(int userId) {
+
+        return usersById.get(userId);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        in.defaultReadObject();
+        
+        usersById = new IntHashMap<MantisUser>(allUsers.size());
+        for ( MantisUser user : allUsers.values() )
+            usersById.put(user.getValue(), user);
+        
+        // not present in data written by older versions
+        if ( sectionRefreshTimes == null )
+            sectionRefreshTimes = new HashMap<Integer, Map<CacheSection, Long>>();
+    }
+
+    /**
+     * @param section the section
+     * @param projectId the project id, ignored for global sections
+     * @return the time the section was last refreshed, or <tt>0</tt> if it never was
+     */
+    public long getSectionRefreshTime(CacheSection section, int projectId) {
+
+        Map<CacheSection, Long> refreshTimes = sectionRefreshTimes.get(toSectionKey(section, projectId));
+        if ( refreshTimes == null )
+            return 0;
+
+        Long refreshTime = refreshTimes.get(section);
+        return refreshTime == null ? 0 : refreshTime.longValue();
+    }
+
+    /**
+     * @param section the section
+     * @param projectId the project id, ignored for global sections
+     * @param refreshTime the time the section was refreshed
+     */
+    public void setSectionRefreshTime(CacheSection section, int projectId, long refreshTime) {
+
+        Integer key = toSectionKey(section, projectId);
+        Map<CacheSection, Long> refreshTimes = sectionRefreshTimes.get(key);
+        if ( refreshTimes == null ) {
+            refreshTimes = new EnumMap<CacheSection, Long>(CacheSection.class);
+            sectionRefreshTimes.put(key, refreshTimes);
+        }
+        refreshTimes.put(section, refreshTime);
+    }
+
+    /**
+     * @param projectId the project id
+     * @return true if the configuration of the project was retrieved at some point, even if it has expired since
+     */
+    public boolean isProjectLoaded(int projectId) {
+
+        return sectionRefreshTimes.containsKey(projectId);
+    }
+
+    /**
+     * Forgets when the section was refreshed, for all projects, so that the next refresh fetches it again
+     * 
+     * @param section the section
+     */
+    void expireSection(CacheSection section) {
+
+        for ( Map<CacheSection, Long> refreshTimes : sectionRefreshTimes.values() )
+            refreshTimes.remove(section);
+    }
+
+    Map<Integer, Map<CacheSection, Long>> getSectionRefreshTimes() {
+
+        return sectionRefreshTimes;
+    }
+
+    private static Integer toSectionKey(CacheSection section, int projectId) {
+
+        return section.isProjectSpecific() ? projectId : MantisProject.ALL_PROJECTS.getValue();
+    }
+	
+    /**
+     * Marks this instance as changed since it was last persisted
+     */
+    public void markDirty() {
+
+        dirty = true;
+    }
+
+    /**
+     * Marks this instance as persisted
+     */
+    public void markClean() {
+
+        dirty = false;
+    }
+
+    /**
+     * @return true if this instance has changes which were not yet persisted
+     */
+    public boolean isDirty() {
+
+        return dirty;
+    }
 	
 	public boolean hasBeenRefreshed() {
 	    
 	    return lastUpdate != 0;
 	}
     
+    public long getLastUpdate() {
+
+        return lastUpdate;
+    }
+    
     public void setLastUpdate(long lastUpdate) {
 
         this.lastUpdate = lastUpdate;
@@ -116,6 +317,29 @@ public class MantisCacheData implements Serializable {
     public void setProjects(List<MantisProject> projects) {
 
         this.projects = projects;
+        invalidateIndex();
+    }
+
+    /**
+     * @return the lookup index for the current contents, built on first access
+     */
+    MantisCacheIndex getIndex() {
+
+        MantisCacheIndex current = index;
+        if ( current == null ) {
+            current = new MantisCacheIndex(this);
+            index = current;
+        }
+        
+        return current;
+    }
+
+    /**
+     * Discards the lookup index, must be invoked after changing any of the indexed values
+     */
+    void invalidateIndex() {
+
+        index = null;
     }
 
     public int getDeveloperThreshold() {
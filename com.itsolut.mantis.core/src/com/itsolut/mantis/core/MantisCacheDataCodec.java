@@ -0,0 +1,997 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ListMultimap;
+import com.itsolut.mantis.core.model.*;
+import com.itsolut.mantis.core.model.MantisTicket.Key;
+
+/**
+ * Binary encoding of {@link MantisCacheData} instances
+ * 
+ * <p>The encoding is explicit rather than based on Java serialization, so that it does not depend on
+ * the class layout of the cached model objects. The data is split into tagged, length-prefixed
+ * {@link Section sections}, so that a newer or older version of the plug-in can skip the sections it does
+ * not understand and keep the rest. Collections are written as an element count followed by the elements,
+ * with a count of <tt>-1</tt> standing for <code>null</code>.</p>
+ */
+final class MantisCacheDataCodec {
+
+    private MantisCacheDataCodec() {
+
+    }
+
+    /**
+     * The version of the encoding produced by {@link #write(MantisCacheData, DataOutput)}
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int END_TAG = 0;
+
+    static void write(MantisCacheData data, DataOutput out) throws IOException {
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream sectionOut = new DataOutputStream(buffer);
+
+        for (Section section : Section.values()) {
+            buffer.reset();
+            section.write(data, sectionOut);
+            sectionOut.flush();
+
+            out.writeInt(section.tag);
+            out.writeInt(buffer.size());
+            out.write(buffer.toByteArray());
+        }
+
+        out.writeInt(END_TAG);
+    }
+
+    /**
+     * Reads data encoded in the specified <tt>formatVersion</tt>
+     * 
+     * <p>Sections with an unknown tag were written by a newer version and are skipped. Sections which are
+     * missing or can no longer be decoded keep their default values; in that case the returned data is
+     * marked as not {@link MantisCacheData#hasBeenRefreshed() refreshed} and the matching
+     * {@link CacheSection} is expired, so that the first use refreshes just those sections while the ones
+     * which could be read remain available.</p>
+     */
+    static MantisCacheData read(DataInput in, int formatVersion) throws IOException {
+
+        if (formatVersion != FORMAT_VERSION)
+            throw new IOException("Unsupported format version " + formatVersion);
+
+        MantisCacheData data = new MantisCacheData();
+        Set<Section> missing = EnumSet.allOf(Section.class);
+
+        int tag;
+        while ((tag = in.readInt()) != END_TAG) {
+            int length = in.readInt();
+            if (length < 0)
+                throw new IOException("Invalid section length " + length);
+
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+
+            Section section = Section.forTag(tag);
+            if (section == null)
+                continue;
+
+            try {
+                section.read(new DataInputStream(new ByteArrayInputStream(bytes)), data);
+                missing.remove(section);
+            } catch (IOException e) {
+                // the section layout changed, leave it to the next refresh
+            } catch (RuntimeException e) {
+                // the section layout changed, leave it to the next refresh
+            }
+        }
+
+        for (Section section : missing) {
+            if (!section.isRequired())
+                continue;
+            if (section.cacheSection != null)
+                data.expireSection(section.cacheSection);
+            data.setLastUpdate(0);
+        }
+
+        return data;
+    }
+
+    private static void readTags(DataInput in, MantisCacheData data) throws IOException {
+
+        List<MantisTag> tags = readList(in, TAG);
+        if (tags == null)
+            return;
+
+        Map<Integer, MantisTag> tagsById = new HashMap<Integer, MantisTag>();
+        for (MantisTag tag : tags)
+            tagsById.put(tag.getValue(), tag);
+        data.setTagsById(tagsById);
+    }
+
+    private static void writeSectionRefreshTimes(DataOutput out, MantisCacheData data) throws IOException {
+
+        Map<Integer, Map<CacheSection, Long>> refreshTimes = data.getSectionRefreshTimes();
+        out.writeInt(refreshTimes.size());
+        for (Map.Entry<Integer, Map<CacheSection, Long>> entry : refreshTimes.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<CacheSection, Long> sectionEntry : entry.getValue().entrySet()) {
+                writeEnum(out, sectionEntry.getKey());
+                out.writeLong(sectionEntry.getValue());
+            }
+        }
+    }
+
+    private static void readSectionRefreshTimes(DataInput in, MantisCacheData data) throws IOException {
+
+        int projects = in.readInt();
+        for (int i = 0; i < projects; i++) {
+            int projectId = in.readInt();
+            int sections = in.readInt();
+            for (int j = 0; j < sections; j++) {
+                CacheSection section = readEnum(in, CacheSection.class);
+                long refreshTime = in.readLong();
+                if (section != null)
+                    data.setSectionRefreshTime(section, projectId, refreshTime);
+            }
+        }
+    }
+
+    private static void writeDefaultValues(DataOutput out, MantisCacheData data) throws IOException {
+
+        out.writeInt(data.defaultValuesForAttributes.size());
+        for (Map.Entry<Key, Integer> entry : data.defaultValuesForAttributes.entrySet()) {
+            writeString(out, entry.getKey().name());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static void readDefaultValues(DataInput in, MantisCacheData data) throws IOException {
+
+        int defaultValues = in.readInt();
+        for (int i = 0; i < defaultValues; i++) {
+            Key key = toEnum(Key.class, readString(in));
+            int value = in.readInt();
+            if (key != null)
+                data.putDefaultValueForAttribute(key, value);
+        }
+    }
+
+    private static void writeDefaultStringValues(DataOutput out, MantisCacheData data) throws IOException {
+
+        out.writeInt(data.defaultStringValuesForAttributes.size());
+        for (Map.Entry<Key, String> entry : data.defaultStringValuesForAttributes.entrySet()) {
+            writeString(out, entry.getKey().name());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static void readDefaultStringValues(DataInput in, MantisCacheData data) throws IOException {
+
+        int defaultStringValues = in.readInt();
+        for (int i = 0; i < defaultStringValues; i++) {
+            Key key = toEnum(Key.class, readString(in));
+            String value = readString(in);
+            if (key != null)
+                data.putDefaultValueForStringAttribute(key, value);
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+
+        int length = in.readInt();
+        if (length == -1)
+            return null;
+        if (length < 0)
+            throw new IOException("Invalid string length " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+
+        writeString(out, value == null ? null : value.name());
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, Class<E> enumType) throws IOException {
+
+        return toEnum(enumType, readString(in));
+    }
+
+    /**
+     * @return the matching constant, or <code>null</code> if the name is <code>null</code> or no longer exists
+     */
+    private static <E extends Enum<E>> E toEnum(Class<E> enumType, String name) {
+
+        if (name == null)
+            return null;
+
+        try {
+            return Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static <T> void writeList(DataOutput out, Collection<T> values, ElementCodec<T> codec) throws IOException {
+
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(values.size());
+        for (T value : values)
+            codec.write(out, value);
+    }
+
+    private static <T> List<T> readList(DataInput in, ElementCodec<T> codec) throws IOException {
+
+        int size = in.readInt();
+        if (size == -1)
+            return null;
+        if (size < 0)
+            throw new IOException("Invalid collection size " + size);
+
+        List<T> values = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++)
+            values.add(codec.read(in));
+        return values;
+    }
+
+    private static <T> void writeMultimap(DataOutput out, ListMultimap<Integer, T> values, ElementCodec<T> codec)
+            throws IOException {
+
+        Map<Integer, Collection<T>> map = values.asMap();
+        out.writeInt(map.size());
+        for (Map.Entry<Integer, Collection<T>> entry : map.entrySet()) {
+            out.writeInt(entry.getKey());
+            writeList(out, entry.getValue(), codec);
+        }
+    }
+
+    private static <T> void readMultimap(DataInput in, ListMultimap<Integer, T> target, ElementCodec<T> codec)
+            throws IOException {
+
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int key = in.readInt();
+            List<T> values = readList(in, codec);
+            if (values != null)
+                target.putAll(key, values);
+        }
+    }
+
+    private static <T> void writeMap(DataOutput out, Map<Integer, List<T>> values, ElementCodec<T> codec)
+            throws IOException {
+
+        out.writeInt(values.size());
+        for (Map.Entry<Integer, List<T>> entry : values.entrySet()) {
+            out.writeInt(entry.getKey());
+            writeList(out, entry.getValue(), codec);
+        }
+    }
+
+    private static <T> Map<Integer, List<T>> readMap(DataInput in, ElementCodec<T> codec) throws IOException {
+
+        int size = in.readInt();
+        Map<Integer, List<T>> values = new HashMap<Integer, List<T>>();
+        for (int i = 0; i < size; i++) {
+            int key = in.readInt();
+            values.put(key, readList(in, codec));
+        }
+        return values;
+    }
+
+    /**
+     * The independently decodable parts of the encoding
+     * 
+     * <p>Each section is written as its tag, its length in bytes and its content. Tags must never be reused;
+     * when the content of a section changes incompatibly it must be given a new tag. Fields may be appended
+     * to the end of a section, older versions ignore them.</p>
+     */
+    private enum Section {
+
+        LAST_UPDATE(1, null) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                out.writeLong(data.getLastUpdate());
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.setLastUpdate(in.readLong());
+            }
+        },
+
+        REPOSITORY_VERSION(2, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeEnum(out, data.repositoryVersion);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.repositoryVersion = readEnum(in, RepositoryVersion.class);
+            }
+        },
+
+        PROJECTS(3, null) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.getProjects(), PROJECT);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.setProjects(readList(in, PROJECT));
+            }
+        },
+
+        PROJECT_FILTERS(4, CacheSection.PROJECT_FILTERS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMultimap(out, data.getProjectFiltersById(), FILTER);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readMultimap(in, data.getProjectFiltersById(), FILTER);
+            }
+        },
+
+        CUSTOM_FIELDS(5, CacheSection.PROJECT_CUSTOM_FIELDS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMultimap(out, data.getCustomFieldsByProjectId(), CUSTOM_FIELD);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readMultimap(in, data.getCustomFieldsByProjectId(), CUSTOM_FIELD);
+            }
+        },
+
+        VERSIONS(6, CacheSection.PROJECT_VERSIONS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMultimap(out, data.getVersionsByProjectId(), VERSION);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readMultimap(in, data.getVersionsByProjectId(), VERSION);
+            }
+        },
+
+        REPORTERS(7, CacheSection.PROJECT_USERS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMultimap(out, data.getReportersByProjectId(), USER);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readMultimap(in, data.getReportersByProjectId(), USER);
+            }
+        },
+
+        DEVELOPERS(8, CacheSection.PROJECT_USERS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMultimap(out, data.getDevelopersByProjectId(), USER);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readMultimap(in, data.getDevelopersByProjectId(), USER);
+            }
+        },
+
+        CATEGORIES(9, CacheSection.PROJECT_CATEGORIES) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeMap(out, data.categoriesByProjectId, CATEGORY);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.categoriesByProjectId = readMap(in, CATEGORY);
+            }
+        },
+
+        USERS(10, CacheSection.PROJECT_USERS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.allUsers.values(), USER);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                List<MantisUser> users = readList(in, USER);
+                if (users != null)
+                    for (MantisUser user : users)
+                        data.putUser(user);
+            }
+        },
+
+        PRIORITIES(11, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.priorities, PRIORITY);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.priorities = readList(in, PRIORITY);
+            }
+        },
+
+        STATUSES(12, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.statuses, STATUS);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.statuses = readList(in, STATUS);
+            }
+        },
+
+        SEVERITIES(13, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.severities, SEVERITY);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.severities = readList(in, SEVERITY);
+            }
+        },
+
+        RESOLUTIONS(14, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.resolutions, RESOLUTION);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.resolutions = readList(in, RESOLUTION);
+            }
+        },
+
+        REPRODUCIBILITIES(15, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.reproducibilities, REPRODUCIBILITY);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.reproducibilities = readList(in, REPRODUCIBILITY);
+            }
+        },
+
+        PROJECTIONS(16, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.projections, PROJECTION);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.projections = readList(in, PROJECTION);
+            }
+        },
+
+        ETAS(17, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.etas, ETA);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.etas = readList(in, ETA);
+            }
+        },
+
+        VIEW_STATES(18, CacheSection.GLOBAL_ENUMS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.viewStates, VIEW_STATE);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.viewStates = readList(in, VIEW_STATE);
+            }
+        },
+
+        TAGS(19, CacheSection.TAGS) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeList(out, data.tagsById == null ? null : data.tagsById.values(), TAG);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readTags(in, data);
+            }
+        },
+
+        STATUS_THRESHOLDS(20, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                out.writeInt(data.resolvedStatus);
+                out.writeInt(data.bugSubmitStatus);
+                out.writeInt(data.bugAssignedStatus);
+                out.writeInt(data.getBugResolutionFixedThreshold());
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.resolvedStatus = in.readInt();
+                data.bugSubmitStatus = in.readInt();
+                data.bugAssignedStatus = in.readInt();
+                data.setBugResolutionFixedThreshold(in.readInt());
+            }
+        },
+
+        ACCESS_THRESHOLDS(21, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                out.writeInt(data.getReporterThreshold());
+                out.writeInt(data.getDeveloperThreshold());
+                out.writeInt(data.dueDateUpdateThreshold);
+                out.writeInt(data.dueDateViewThreshold);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.setReporterThreshold(in.readInt());
+                data.setDeveloperThreshold(in.readInt());
+                data.dueDateUpdateThreshold = in.readInt();
+                data.dueDateViewThreshold = in.readInt();
+            }
+        },
+
+        FEATURES(22, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                out.writeBoolean(data.timeTrackingEnabled);
+                out.writeBoolean(data.isEtaEnabled());
+                out.writeBoolean(data.isProjectionEnabled());
+                out.writeBoolean(data.isEnableProfiles());
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                data.timeTrackingEnabled = in.readBoolean();
+                data.setEtaEnabled(in.readBoolean());
+                data.setProjectionEnabled(in.readBoolean());
+                data.setEnableProfiles(in.readBoolean());
+            }
+        },
+
+        DEFAULT_VALUES(23, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeDefaultValues(out, data);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readDefaultValues(in, data);
+            }
+        },
+
+        DEFAULT_STRING_VALUES(24, CacheSection.CONFIGURATION) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeDefaultStringValues(out, data);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readDefaultStringValues(in, data);
+            }
+        },
+
+        SECTION_REFRESH_TIMES(25, null) {
+
+            @Override
+            void write(MantisCacheData data, DataOutput out) throws IOException {
+
+                writeSectionRefreshTimes(out, data);
+            }
+
+            @Override
+            void read(DataInput in, MantisCacheData data) throws IOException {
+
+                readSectionRefreshTimes(in, data);
+            }
+
+            @Override
+            boolean isRequired() {
+
+                // without refresh times all sections count as expired, which the next refresh takes care of
+                return false;
+            }
+        };
+
+        private final int tag;
+
+        /**
+         * The configuration section held by this section, if it is refreshed on its own
+         */
+        private final CacheSection cacheSection;
+
+        private Section(int tag, CacheSection cacheSection) {
+
+            this.tag = tag;
+            this.cacheSection = cacheSection;
+        }
+
+        abstract void write(MantisCacheData data, DataOutput out) throws IOException;
+
+        abstract void read(DataInput in, MantisCacheData data) throws IOException;
+
+        /**
+         * @return true if the data can not be used without a refresh when this section is missing
+         */
+        boolean isRequired() {
+
+            return true;
+        }
+
+        /**
+         * @return the section with the specified <tt>tag</tt>, or <code>null</code> if it is not known
+         */
+        static Section forTag(int tag) {
+
+            for (Section section : values())
+                if (section.tag == tag)
+                    return section;
+            return null;
+        }
+    }
+
+    private interface ElementCodec<T> {
+
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    private static abstract class AttributeCodec<T extends MantisTicketAttribute> implements ElementCodec<T> {
+
+        public void write(DataOutput out, T value) throws IOException {
+
+            writeString(out, value.getName());
+            out.writeInt(value.getValue());
+        }
+
+        public T read(DataInput in) throws IOException {
+
+            String name = readString(in);
+            return create(name, in.readInt());
+        }
+
+        protected abstract T create(String name, int value);
+    }
+
+    private static final ElementCodec<MantisProject> PROJECT = new ElementCodec<MantisProject>() {
+
+        public void write(DataOutput out, MantisProject value) throws IOException {
+
+            writeString(out, value.getName());
+            out.writeInt(value.getValue());
+            out.writeBoolean(value.getParentProjectId() != null);
+            if (value.getParentProjectId() != null)
+                out.writeInt(value.getParentProjectId());
+        }
+
+        public MantisProject read(DataInput in) throws IOException {
+
+            String name = readString(in);
+            int value = in.readInt();
+            Integer parentProjectId = in.readBoolean() ? Integer.valueOf(in.readInt()) : null;
+            return new MantisProject(name, value, parentProjectId);
+        }
+    };
+
+    private static final ElementCodec<MantisProjectFilter> FILTER = new ElementCodec<MantisProjectFilter>() {
+
+        public void write(DataOutput out, MantisProjectFilter value) throws IOException {
+
+            writeString(out, value.getName());
+            out.writeInt(value.getValue());
+            writeString(out, value.getUrl());
+            out.writeInt(value.getProjectId());
+        }
+
+        public MantisProjectFilter read(DataInput in) throws IOException {
+
+            String name = readString(in);
+            int value = in.readInt();
+            String url = readString(in);
+            return new MantisProjectFilter(name, value, url, in.readInt());
+        }
+    };
+
+    private static final ElementCodec<MantisCustomField> CUSTOM_FIELD = new ElementCodec<MantisCustomField>() {
+
+        public void write(DataOutput out, MantisCustomField value) throws IOException {
+
+            out.writeInt(value.getId());
+            writeString(out, value.getName());
+            writeEnum(out, value.getType());
+            writeString(out, value.getDefaultValue());
+            String[] possibleValues = value.getPossibleValues();
+            out.writeInt(possibleValues == null ? -1 : possibleValues.length);
+            if (possibleValues != null)
+                for (String possibleValue : possibleValues)
+                    writeString(out, possibleValue);
+        }
+
+        public MantisCustomField read(DataInput in) throws IOException {
+
+            MantisCustomField customField = new MantisCustomField();
+            customField.setId(in.readInt());
+            customField.setName(readString(in));
+            customField.setType(readEnum(in, MantisCustomFieldType.class));
+            customField.setDefaultValue(readString(in));
+            int possibleValuesCount = in.readInt();
+            if (possibleValuesCount >= 0) {
+                String[] possibleValues = new String[possibleValuesCount];
+                for (int i = 0; i < possibleValuesCount; i++)
+                    possibleValues[i] = readString(in);
+                customField.setPossibleValues(possibleValues);
+            }
+            return customField;
+        }
+    };
+
+    private static final ElementCodec<MantisVersion> VERSION = new ElementCodec<MantisVersion>() {
+
+        public void write(DataOutput out, MantisVersion value) throws IOException {
+
+            writeString(out, value.getName());
+            out.writeLong(value.getTime() == null ? -1 : value.getTime().getTime());
+            writeString(out, value.getDescription());
+            out.writeBoolean(value.isReleased());
+        }
+
+        public MantisVersion read(DataInput in) throws IOException {
+
+            MantisVersion version = new MantisVersion(readString(in));
+            long time = in.readLong();
+            if (time != -1)
+                version.setTime(new Date(time));
+            version.setDescription(readString(in));
+            version.setReleased(in.readBoolean());
+            return version;
+        }
+    };
+
+    private static final ElementCodec<MantisUser> USER = new ElementCodec<MantisUser>() {
+
+        public void write(DataOutput out, MantisUser value) throws IOException {
+
+            out.writeInt(value.getValue());
+            writeString(out, value.getKey());
+            writeString(out, value.getRealName());
+            writeString(out, value.getEmail());
+        }
+
+        public MantisUser read(DataInput in) throws IOException {
+
+            int id = in.readInt();
+            String username = readString(in);
+            String realName = readString(in);
+            return new MantisUser(id, username, realName, readString(in));
+        }
+    };
+
+    private static final ElementCodec<MantisProjectCategory> CATEGORY = new AttributeCodec<MantisProjectCategory>() {
+
+        @Override
+        protected MantisProjectCategory create(String name, int value) {
+
+            return new MantisProjectCategory(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisTag> TAG = new AttributeCodec<MantisTag>() {
+
+        @Override
+        protected MantisTag create(String name, int value) {
+
+            return new MantisTag(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisPriority> PRIORITY = new AttributeCodec<MantisPriority>() {
+
+        @Override
+        protected MantisPriority create(String name, int value) {
+
+            return new MantisPriority(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisTicketStatus> STATUS = new AttributeCodec<MantisTicketStatus>() {
+
+        @Override
+        protected MantisTicketStatus create(String name, int value) {
+
+            return new MantisTicketStatus(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisSeverity> SEVERITY = new AttributeCodec<MantisSeverity>() {
+
+        @Override
+        protected MantisSeverity create(String name, int value) {
+
+            return new MantisSeverity(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisResolution> RESOLUTION = new AttributeCodec<MantisResolution>() {
+
+        @Override
+        protected MantisResolution create(String name, int value) {
+
+            return new MantisResolution(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisReproducibility> REPRODUCIBILITY = new AttributeCodec<MantisReproducibility>() {
+
+        @Override
+        protected MantisReproducibility create(String name, int value) {
+
+            return new MantisReproducibility(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisProjection> PROJECTION = new AttributeCodec<MantisProjection>() {
+
+        @Override
+        protected MantisProjection create(String name, int value) {
+
+            return new MantisProjection(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisETA> ETA = new AttributeCodec<MantisETA>() {
+
+        @Override
+        protected MantisETA create(String name, int value) {
+
+            return new MantisETA(name, value);
+        }
+    };
+
+    private static final ElementCodec<MantisViewState> VIEW_STATE = new AttributeCodec<MantisViewState>() {
+
+        @Override
+        protected MantisViewState create(String name, int value) {
+
+            return new MantisViewState(name, value);
+        }
+    };
+}
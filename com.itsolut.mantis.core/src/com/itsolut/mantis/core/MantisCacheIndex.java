@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.itsolut.mantis.core.model.*;
+import com.itsolut.mantis.core.util.IntHashMap;
+
+/**
+ * Hash-based lookup tables over the contents of a {@link MantisCacheData} instance
+ * 
+ * <p>An index is built from a fixed state of the cache data and never updated, so it must be
+ * discarded whenever the indexed data changes, see {@link MantisCacheData#invalidateIndex()}. Where
+ * the lists hold duplicates the first entry wins, same as a linear scan would. Ids are looked up in
+ * {@link IntHashMap}s, so that the lookups do not box them.</p>
+ */
+final class MantisCacheIndex {
+
+    final IntHashMap<MantisProject> projectsById;
+    final Map<String, MantisProject> projectsByName;
+    final IntHashMap<MantisPriority> prioritiesById;
+    final IntHashMap<MantisTicketStatus> statusesById;
+    final Map<String, MantisTicketStatus> statusesByName;
+    final IntHashMap<MantisSeverity> severitiesById;
+    final IntHashMap<MantisResolution> resolutionsById;
+    final IntHashMap<MantisReproducibility> reproducibilitiesById;
+    final IntHashMap<MantisProjection> projectionsById;
+    final IntHashMap<MantisETA> etasById;
+    final IntHashMap<MantisViewState> viewStatesById;
+    final IntHashMap<Map<String, MantisCustomField>> customFieldsByProjectId;
+
+    MantisCacheIndex(MantisCacheData data) {
+
+        projectsById = byValue(data.getProjects());
+        projectsByName = byName(data.getProjects());
+        prioritiesById = byValue(data.priorities);
+        statusesById = byValue(data.statuses);
+        statusesByName = byName(data.statuses);
+        severitiesById = byValue(data.severities);
+        resolutionsById = byValue(data.resolutions);
+        reproducibilitiesById = byValue(data.reproducibilities);
+        projectionsById = byValue(data.projections);
+        etasById = byValue(data.etas);
+        viewStatesById = byValue(data.viewStates);
+
+        Map<Integer, Collection<MantisCustomField>> customFields = data.getCustomFieldsByProjectId().asMap();
+        customFieldsByProjectId = new IntHashMap<Map<String, MantisCustomField>>(customFields.size());
+        for (Map.Entry<Integer, Collection<MantisCustomField>> entry : customFields.entrySet()) {
+            Map<String, MantisCustomField> byName = Maps.newHashMapWithExpectedSize(entry.getValue().size());
+            for (MantisCustomField customField : entry.getValue())
+                if (!byName.containsKey(customField.getName()))
+                    byName.put(customField.getName(), customField);
+            customFieldsByProjectId.put(entry.getKey().intValue(), byName);
+        }
+    }
+
+    private static <T extends MantisTicketAttribute> IntHashMap<T> byValue(List<T> attributes) {
+
+        if (attributes == null)
+            return new IntHashMap<T>();
+
+        IntHashMap<T> index = new IntHashMap<T>(attributes.size());
+        for (T attribute : attributes)
+            if (!index.containsKey(attribute.getValue()))
+                index.put(attribute.getValue(), attribute);
+
+        return index;
+    }
+
+    private static <T extends MantisTicketAttribute> Map<String, T> byName(List<T> attributes) {
+
+        if (attributes == null)
+            return Collections.emptyMap();
+
+        Map<String, T> index = Maps.newHashMapWithExpectedSize(attributes.size());
+        for (T attribute : attributes)
+            if (!index.containsKey(attribute.getName()))
+                index.put(attribute.getName(), attribute);
+
+        return index;
+    }
+}
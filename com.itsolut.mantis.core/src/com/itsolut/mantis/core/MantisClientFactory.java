@@ -47,11 +47,17 @@ public class MantisClientFactory {
 
     public IMantisClient createClient(AbstractWebLocation webLocation) throws MantisException {
 
-        return new MantisSoapClient(webLocation, tracer);
+        return createClient(webLocation, new MantisClientSettings());
+    }
+
+    public IMantisClient createClient(AbstractWebLocation webLocation, MantisClientSettings settings) throws MantisException {
+
+        return new MantisSoapClient(webLocation, settings, tracer);
     }
     
     public IMantisClient createClient(TaskRepository taskRepository) throws MantisException {
         
-        return createClient(taskRepositoryLocationFactory.createWebLocation(taskRepository));
+        return createClient(taskRepositoryLocationFactory.createWebLocation(taskRepository),
+                MantisRepositoryConfiguration.getClientSettings(taskRepository));
     }
 }
@@ -22,19 +22,9 @@
 
 package com.itsolut.mantis.core;
 
-import java.io.Closeable;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.mylyn.internal.tasks.core.IRepositoryChangeListener;
 import org.eclipse.mylyn.internal.tasks.core.IRepositoryConstants;
 import org.eclipse.mylyn.internal.tasks.core.TaskRepositoryChangeEvent;
@@ -56,21 +46,33 @@ import com.itsolut.mantis.core.exception.MantisException;
 public class MantisClientManager implements IRepositoryListener, IRepositoryChangeListener, IMantisClientManager, IShutdown {
 
     private Map<String, IMantisClient> clientByUrl = new HashMap<String, IMantisClient>();
-    private final PersistedState state;
+    private final IMantisCacheStore cacheStore;
+    private final IMantisIssueStore issueStore;
+    private final MantisCacheCheckpointer checkpointer;
     private final MantisClientFactory clientFactory;
     private final Tracer tracer;
+    private volatile IMantisClientListener clientListener;
 
     @Inject
-    public MantisClientManager(@RepositoryPersistencePath IPath repositoryPersistencePath, MantisClientFactory clientFactory, Tracer tracer) {
+    public MantisClientManager(IMantisCacheStore cacheStore, IMantisIssueStore issueStore, MantisClientFactory clientFactory, Tracer tracer) {
 
         this.clientFactory = clientFactory;
-        state = new PersistedState(repositoryPersistencePath.toFile());
+        this.cacheStore = cacheStore;
+        this.issueStore = issueStore;
         this.tracer = tracer;
+        this.checkpointer = new MantisCacheCheckpointer(cacheStore, MantisCacheCheckpointer.DEFAULT_DEBOUNCE_MILLIS, tracer);
     }
 
     public synchronized void onShutdown() {
 
-        state.write();
+        checkpointer.shutdown();
+        
+        // only write what the checkpointer did not get to persist
+        for (Map.Entry<String, IMantisClient> entry : clientByUrl.entrySet()) {
+            MantisCacheData cacheData = entry.getValue().getCacheData();
+            if (cacheData.isDirty() && cacheData.hasBeenRefreshed() && cacheStore.save(entry.getKey(), cacheData))
+                cacheData.markClean();
+        }
     }
 
     public synchronized IMantisClient getRepository(TaskRepository taskRepository) throws MantisException {
@@ -85,13 +87,24 @@ public class MantisClientManager implements IRepositoryListener, IRepositoryChan
 
         IMantisClient repository = clientFactory.createClient(taskRepository);
 
-        String repositoryUrl = taskRepository.getUrl();
-        MantisCacheData cacheData = state.get(repositoryUrl);
-        if (cacheData != null) {
+        final String repositoryUrl = taskRepository.getRepositoryUrl();
+        
+        MantisCacheData cacheData = cacheStore.load(repositoryUrl);
+        if (cacheData != null)
             repository.setCacheData(cacheData);
-        } else {
-            state.add(repositoryUrl, repository.getCacheData());
-        }
+        
+        repository.setCacheListener(new IMantisCacheListener() {
+            public void cacheDataPublished(MantisCacheData publishedData) {
+
+                checkpointer.schedule(repositoryUrl, publishedData);
+            }
+        });
+        
+        repository.setIssueStore(issueStore);
+
+        // readers get the persisted configuration right away, the refreshed one is swapped in once available
+        if (MantisRepositoryConfiguration.getClientSettings(taskRepository).isRevalidateConfiguration())
+            repository.revalidateInBackground();
 
         clientByUrl.put(taskRepository.getRepositoryUrl(), repository);
 
@@ -104,8 +117,7 @@ public class MantisClientManager implements IRepositoryListener, IRepositoryChan
             return;
 
         // make sure there is no stale client still in the cache, bug #149939
-        clientByUrl.remove(repository.getRepositoryUrl());
-        state.remove(repository.getRepositoryUrl());
+        removeClient(repository.getRepositoryUrl());
     }
 
     public synchronized void repositoryRemoved(TaskRepository repository) {
@@ -113,8 +125,7 @@ public class MantisClientManager implements IRepositoryListener, IRepositoryChan
         if (!MantisCorePlugin.REPOSITORY_KIND.equals(repository.getConnectorKind()))
             return;
         
-        clientByUrl.remove(repository.getRepositoryUrl());
-        state.remove(repository.getRepositoryUrl());
+        removeClient(repository.getRepositoryUrl());
     }
 
     public synchronized void repositoryChanged(TaskRepositoryChangeEvent event) {
@@ -135,127 +146,42 @@ public class MantisClientManager implements IRepositoryListener, IRepositoryChan
         
         tracer.trace(TraceLocation.CLIENT_MANAGER, "Clearing repository state; credentialsChanged: {0}, urlChanged: {1}", credentialsChanged, urlChanged);;
         
-        clientByUrl.remove(repository.getRepositoryUrl());
-        state.remove(repository.getRepositoryUrl());
+        removeClient(repository.getRepositoryUrl());
 
     }
 
-    public void repositorySettingsChanged(TaskRepository repository) {
-
-        // handled in repositoryChanged
-
-    }
-
-    public void repositoryUrlChanged(TaskRepository repository, String oldUrl) {
-
-        // handled in repositoryChanged
-    }
-
-    static class PersistedState implements Serializable {
-
-        private static final long serialVersionUID = 1L;
-
-        private Map<String, MantisCacheData> _cacheDataByUrl = new HashMap<String, MantisCacheData>();
-
-        private File cacheFile;
-        private boolean read;
-
-        public PersistedState(File cacheFile) {
-
-            this.cacheFile = cacheFile;
-        }
-
-        public void add(String url, MantisCacheData data) {
-            
-            ensureRead();
+    private void removeClient(String repositoryUrl) {
 
-            add0(url, data);
-        }
+        IMantisClient client = clientByUrl.remove(repositoryUrl);
         
-        private void ensureRead() {
-
-            if ( !read )
-                read();
-        }
+        // a refresh still in progress must not write the discarded state back
+        if (client != null)
+            client.setCacheListener(null);
         
-        private void add0(String url, MantisCacheData data) {
-
-            _cacheDataByUrl.put(url, data);
-        }
-
-        public void remove(String url) {
-
-            ensureRead();
-            
-            _cacheDataByUrl.remove(url);
-        }
-
-        public MantisCacheData get(String url) {
-
-            ensureRead();
-            
-            return _cacheDataByUrl.get(url);
-        }
-
-        private void read() {
-
-            ObjectInputStream in = null;
-            try {
-                in = new ObjectInputStream(new FileInputStream(cacheFile));
-                int size = in.readInt();
-                for (int i = 0; i < size; i++) {
-                    String url = (String) in.readObject();
-                    MantisCacheData data = (MantisCacheData) in.readObject();
-                    add0(url, data);
-                }
-            } catch ( FileNotFoundException cacheDoesNotExist) {
-                // possible, deal with it
-            } catch (Throwable e) {
-                cleanCache(e);
-            } finally {
-                read = true;
-                closeSilently(in);
-            }
+        checkpointer.cancel(repositoryUrl);
+        cacheStore.remove(repositoryUrl);
+        // issues stored under other credentials may include data the current user must not see
+        issueStore.remove(repositoryUrl);
+
+        IMantisClientListener listener = clientListener;
+        if (listener != null)
+            listener.clientRemoved(repositoryUrl);
+    }
 
-        }
+    public void setClientListener(IMantisClientListener clientListener) {
 
-        public void cleanCache(Throwable reason) {
+        this.clientListener = clientListener;
+    }
 
-            if ( MantisCorePlugin.getDefault() != null )
-                MantisCorePlugin.warn("Removing invalid cache file", reason);
-            cacheFile.delete();
-        }
+    public void repositorySettingsChanged(TaskRepository repository) {
 
-        public void write() {
-            
-            ensureRead();
-
-            ObjectOutputStream out = null;
-            try {
-                out = new ObjectOutputStream(new FileOutputStream(cacheFile));
-                out.writeInt(_cacheDataByUrl.size());
-                for (String url : _cacheDataByUrl.keySet()) {
-                    out.writeObject(url);
-                    out.writeObject(_cacheDataByUrl.get(url));
-                }
-            } catch (Throwable e) {
-                MantisCorePlugin.error("Failed writing persistent state.", e);
-            } finally {
-                closeSilently(out);
-            }
+        // handled in repositoryChanged
 
-        }
+    }
 
-        private void closeSilently(Closeable closeable) {
+    public void repositoryUrlChanged(TaskRepository repository, String oldUrl) {
 
-            if (closeable != null) {
-                try {
-                    closeable.close();
-                } catch (IOException ignored) {
-                    // ignore
-                }
-            }
-        }
+        // handled in repositoryChanged
     }
 
 }
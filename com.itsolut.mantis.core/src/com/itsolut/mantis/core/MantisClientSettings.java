@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Holds the tuning settings for a single {@link IMantisClient}
+ * 
+ * <p>The settings are read from the task repository properties by
+ * {@link MantisRepositoryConfiguration#getClientSettings(org.eclipse.mylyn.tasks.core.TaskRepository)}.</p>
+ */
+public class MantisClientSettings {
+
+    public static final int DEFAULT_REFRESH_CONCURRENCY = 4;
+
+    public static final int DEFAULT_TASK_DATA_CONCURRENCY = 4;
+
+    public static final boolean DEFAULT_REVALIDATE_CONFIGURATION = true;
+
+    public static final int DEFAULT_MAX_CONFIGURATION_STALENESS_HOURS = 0;
+
+    public static final boolean DEFAULT_LAZY_PROJECT_CONFIGURATION = false;
+
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+
+    public static final int DEFAULT_SEARCH_PREFETCH_PAGES = 1;
+
+    public static final boolean DEFAULT_ADAPTIVE_QUERY_SCHEDULING = true;
+
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_HOST = 6;
+
+    public static final int DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS = 30;
+
+    public static final boolean DEFAULT_HTTP_COMPRESSION = true;
+
+    public static final boolean DEFAULT_STREAMING_SEARCH = true;
+
+    public static final int DEFAULT_READ_RETRIES = 2;
+
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURES = 5;
+
+    public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS = 30;
+
+    private int refreshConcurrency = DEFAULT_REFRESH_CONCURRENCY;
+
+    private int taskDataConcurrency = DEFAULT_TASK_DATA_CONCURRENCY;
+
+    private boolean revalidateConfiguration = DEFAULT_REVALIDATE_CONFIGURATION;
+
+    private int maxConfigurationStalenessHours = DEFAULT_MAX_CONFIGURATION_STALENESS_HOURS;
+
+    private boolean lazyProjectConfiguration = DEFAULT_LAZY_PROJECT_CONFIGURATION;
+
+    private int searchPageSize = DEFAULT_SEARCH_PAGE_SIZE;
+
+    private int searchPrefetchPages = DEFAULT_SEARCH_PREFETCH_PAGES;
+
+    private int httpMaxConnectionsPerHost = DEFAULT_HTTP_MAX_CONNECTIONS_PER_HOST;
+
+    private int httpIdleTimeoutSeconds = DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS;
+
+    private boolean httpCompression = DEFAULT_HTTP_COMPRESSION;
+
+    private boolean streamingSearch = DEFAULT_STREAMING_SEARCH;
+
+    private int readRetries = DEFAULT_READ_RETRIES;
+
+    private int circuitBreakerFailures = DEFAULT_CIRCUIT_BREAKER_FAILURES;
+
+    private int circuitBreakerOpenSeconds = DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS;
+
+    private final Map<CacheSection, Integer> sectionTtlHours = new EnumMap<CacheSection, Integer>(CacheSection.class);
+
+    /**
+     * @return the maximum number of configuration requests issued in parallel while refreshing
+     *         the repository configuration
+     */
+    public int getRefreshConcurrency() {
+
+        return refreshConcurrency;
+    }
+
+    public void setRefreshConcurrency(int refreshConcurrency) {
+
+        this.refreshConcurrency = Math.max(1, refreshConcurrency);
+    }
+
+    /**
+     * @return the maximum number of tasks retrieved in parallel when synchronizing several tasks at once
+     */
+    public int getTaskDataConcurrency() {
+
+        return taskDataConcurrency;
+    }
+
+    public void setTaskDataConcurrency(int taskDataConcurrency) {
+
+        this.taskDataConcurrency = Math.max(1, taskDataConcurrency);
+    }
+
+    /**
+     * @return true if the repository configuration is refreshed in the background as soon as the client is
+     *         created, while the persisted configuration is served to readers
+     */
+    public boolean isRevalidateConfiguration() {
+
+        return revalidateConfiguration;
+    }
+
+    public void setRevalidateConfiguration(boolean revalidateConfiguration) {
+
+        this.revalidateConfiguration = revalidateConfiguration;
+    }
+
+    /**
+     * @return the age in hours after which the repository configuration is no longer served and callers wait
+     *         for a refresh, or <tt>0</tt> if the configuration never becomes too old to serve
+     */
+    public int getMaxConfigurationStalenessHours() {
+
+        return maxConfigurationStalenessHours;
+    }
+
+    public void setMaxConfigurationStalenessHours(int maxConfigurationStalenessHours) {
+
+        this.maxConfigurationStalenessHours = Math.max(0, maxConfigurationStalenessHours);
+    }
+
+    /**
+     * @return true if the configuration of a project is only retrieved once it is needed, instead of
+     *         retrieving the configuration of all projects up front
+     */
+    public boolean isLazyProjectConfiguration() {
+
+        return lazyProjectConfiguration;
+    }
+
+    public void setLazyProjectConfiguration(boolean lazyProjectConfiguration) {
+
+        this.lazyProjectConfiguration = lazyProjectConfiguration;
+    }
+
+    /**
+     * @return the number of issue headers requested per page when searching
+     */
+    public int getSearchPageSize() {
+
+        return searchPageSize;
+    }
+
+    public void setSearchPageSize(int searchPageSize) {
+
+        this.searchPageSize = Math.max(1, searchPageSize);
+    }
+
+    /**
+     * @return the number of search result pages retrieved ahead of the page currently being processed,
+     *         <tt>0</tt> meaning that pages are only retrieved once needed
+     */
+    public int getSearchPrefetchPages() {
+
+        return searchPrefetchPages;
+    }
+
+    public void setSearchPrefetchPages(int searchPrefetchPages) {
+
+        this.searchPrefetchPages = Math.max(0, searchPrefetchPages);
+    }
+
+    /**
+     * @return the maximum number of pooled HTTP connections kept open to the repository host
+     */
+    public int getHttpMaxConnectionsPerHost() {
+
+        return httpMaxConnectionsPerHost;
+    }
+
+    public void setHttpMaxConnectionsPerHost(int httpMaxConnectionsPerHost) {
+
+        this.httpMaxConnectionsPerHost = Math.max(1, httpMaxConnectionsPerHost);
+    }
+
+    /**
+     * @return the number of seconds after which an unused pooled HTTP connection is closed
+     */
+    public int getHttpIdleTimeoutSeconds() {
+
+        return httpIdleTimeoutSeconds;
+    }
+
+    public void setHttpIdleTimeoutSeconds(int httpIdleTimeoutSeconds) {
+
+        this.httpIdleTimeoutSeconds = Math.max(1, httpIdleTimeoutSeconds);
+    }
+
+    /**
+     * @return true if the repository is asked to send gzip-compressed responses
+     */
+    public boolean isHttpCompression() {
+
+        return httpCompression;
+    }
+
+    public void setHttpCompression(boolean httpCompression) {
+
+        this.httpCompression = httpCompression;
+    }
+
+    /**
+     * @return true if issue header searches are read by the streaming parser, falling back to the
+     *         SOAP stubs if it fails
+     */
+    public boolean isStreamingSearch() {
+
+        return streamingSearch;
+    }
+
+    public void setStreamingSearch(boolean streamingSearch) {
+
+        this.streamingSearch = streamingSearch;
+    }
+
+    /**
+     * @return the number of times a read request which failed because the repository could not be reached
+     *         is repeated, after an exponentially growing random delay
+     */
+    public int getReadRetries() {
+
+        return readRetries;
+    }
+
+    public void setReadRetries(int readRetries) {
+
+        this.readRetries = Math.max(0, readRetries);
+    }
+
+    /**
+     * @return the number of consecutive failed requests after which requests to the repository are
+     *         rejected without being sent
+     */
+    public int getCircuitBreakerFailures() {
+
+        return circuitBreakerFailures;
+    }
+
+    public void setCircuitBreakerFailures(int circuitBreakerFailures) {
+
+        this.circuitBreakerFailures = Math.max(1, circuitBreakerFailures);
+    }
+
+    /**
+     * @return the number of seconds during which requests are rejected before a single one is sent to probe
+     *         the repository
+     */
+    public int getCircuitBreakerOpenSeconds() {
+
+        return circuitBreakerOpenSeconds;
+    }
+
+    public void setCircuitBreakerOpenSeconds(int circuitBreakerOpenSeconds) {
+
+        this.circuitBreakerOpenSeconds = Math.max(1, circuitBreakerOpenSeconds);
+    }
+
+    /**
+     * @param section the configuration section
+     * @return the number of hours after which the section is fetched again by a refresh, <tt>0</tt> meaning
+     *         on every refresh
+     */
+    public int getSectionTtlHours(CacheSection section) {
+
+        Integer ttlHours = sectionTtlHours.get(section);
+        return ttlHours == null ? section.getDefaultTtlHours() : ttlHours.intValue();
+    }
+
+    public void setSectionTtlHours(CacheSection section, int ttlHours) {
+
+        sectionTtlHours.put(section, Math.max(0, ttlHours));
+    }
+}
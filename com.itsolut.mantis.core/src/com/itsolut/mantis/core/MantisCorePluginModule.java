@@ -33,6 +33,8 @@ class MantisCorePluginModule extends AbstractModule {
         bind(MantisAttachmentHandler.class);
         bind(MantisTaskDataHandler.class);
         bind(IMantisClientManager.class).to(MantisClientManager.class);
+        bind(IMantisCacheStore.class).to(FileMantisCacheStore.class);
+        bind(IMantisIssueStore.class).to(FileMantisIssueStore.class);
         bind(MantisCommentMapper.class);
         bind(IPath.class).annotatedWith(RepositoryPersistencePath.class).toProvider(RepositoryPersistencePathProvider.class);
         bind(MantisRepositoryConnector.class).toInstance(mantisRepositoryConnector);
@@ -1,5 +1,7 @@
 package com.itsolut.mantis.core;
 
+import java.util.Locale;
+
 import org.eclipse.mylyn.internal.tasks.core.IRepositoryConstants;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
 
@@ -7,6 +9,40 @@ import org.eclipse.mylyn.tasks.core.TaskRepository;
 public class MantisRepositoryConfiguration {
 
     private static final String SUPPORTS_SUBTASKS = "supports_subtasks";
+
+    private static final String REFRESH_CONCURRENCY = "refresh_concurrency";
+
+    private static final String TASK_DATA_CONCURRENCY = "task_data_concurrency";
+
+    private static final String REVALIDATE_CONFIGURATION = "revalidate_configuration";
+
+    private static final String MAX_CONFIGURATION_STALENESS_HOURS = "max_configuration_staleness_hours";
+
+    private static final String SECTION_TTL_HOURS_PREFIX = "ttl_hours_";
+
+    private static final String LAZY_PROJECT_CONFIGURATION = "lazy_project_configuration";
+
+    private static final String SEARCH_PAGE_SIZE = "search_page_size";
+
+    private static final String SEARCH_PREFETCH_PAGES = "search_prefetch_pages";
+
+    private static final String HTTP_MAX_CONNECTIONS_PER_HOST = "http_max_connections_per_host";
+
+    private static final String HTTP_IDLE_TIMEOUT_SECONDS = "http_idle_timeout_seconds";
+
+    private static final String HTTP_COMPRESSION = "http_compression";
+
+    private static final String STREAMING_SEARCH = "streaming_search";
+
+    private static final String READ_RETRIES = "read_retries";
+
+    private static final String CIRCUIT_BREAKER_FAILURES = "circuit_breaker_failures";
+
+    private static final String CIRCUIT_BREAKER_OPEN_SECONDS = "circuit_breaker_open_seconds";
+
+    private static final String CHANGED_SINCE_FILTER = "changed_since_filter";
+
+    private static final String ADAPTIVE_QUERY_SCHEDULING = "adaptive_query_scheduling";
     
     public static boolean isSupportsSubTasks(TaskRepository repository) {
         
@@ -15,10 +51,15 @@ public class MantisRepositoryConfiguration {
 
     private static boolean getBooleanProperty(TaskRepository repository, String propertyName) {
 
+        return getBooleanProperty(repository, propertyName, false);
+    }
+
+    private static boolean getBooleanProperty(TaskRepository repository, String propertyName, boolean defaultValue) {
+
         String property = repository.getProperty(propertyName);
 
-        if (property == null) // default value
-            return false;
+        if (property == null)
+            return defaultValue;
 
         return Boolean.parseBoolean(property);
     }
@@ -27,6 +68,238 @@ public class MantisRepositoryConfiguration {
 
         repository.setProperty(SUPPORTS_SUBTASKS, String.valueOf(downloadSubTasks));
     }
+
+    public static int getRefreshConcurrency(TaskRepository repository) {
+
+        return getIntProperty(repository, REFRESH_CONCURRENCY, MantisClientSettings.DEFAULT_REFRESH_CONCURRENCY);
+    }
+
+    public static void setRefreshConcurrency(TaskRepository repository, int refreshConcurrency) {
+
+        repository.setProperty(REFRESH_CONCURRENCY, String.valueOf(refreshConcurrency));
+    }
+
+    public static int getTaskDataConcurrency(TaskRepository repository) {
+
+        return getIntProperty(repository, TASK_DATA_CONCURRENCY, MantisClientSettings.DEFAULT_TASK_DATA_CONCURRENCY);
+    }
+
+    public static void setTaskDataConcurrency(TaskRepository repository, int taskDataConcurrency) {
+
+        repository.setProperty(TASK_DATA_CONCURRENCY, String.valueOf(taskDataConcurrency));
+    }
+
+    public static boolean isRevalidateConfiguration(TaskRepository repository) {
+
+        return getBooleanProperty(repository, REVALIDATE_CONFIGURATION,
+                MantisClientSettings.DEFAULT_REVALIDATE_CONFIGURATION);
+    }
+
+    public static void setRevalidateConfiguration(TaskRepository repository, boolean revalidateConfiguration) {
+
+        repository.setProperty(REVALIDATE_CONFIGURATION, String.valueOf(revalidateConfiguration));
+    }
+
+    public static int getMaxConfigurationStalenessHours(TaskRepository repository) {
+
+        return getIntProperty(repository, MAX_CONFIGURATION_STALENESS_HOURS,
+                MantisClientSettings.DEFAULT_MAX_CONFIGURATION_STALENESS_HOURS);
+    }
+
+    public static void setMaxConfigurationStalenessHours(TaskRepository repository, int hours) {
+
+        repository.setProperty(MAX_CONFIGURATION_STALENESS_HOURS, String.valueOf(hours));
+    }
+
+    public static boolean isLazyProjectConfiguration(TaskRepository repository) {
+
+        return getBooleanProperty(repository, LAZY_PROJECT_CONFIGURATION,
+                MantisClientSettings.DEFAULT_LAZY_PROJECT_CONFIGURATION);
+    }
+
+    public static void setLazyProjectConfiguration(TaskRepository repository, boolean lazyProjectConfiguration) {
+
+        repository.setProperty(LAZY_PROJECT_CONFIGURATION, String.valueOf(lazyProjectConfiguration));
+    }
+
+    public static int getSearchPageSize(TaskRepository repository) {
+
+        return getIntProperty(repository, SEARCH_PAGE_SIZE, MantisClientSettings.DEFAULT_SEARCH_PAGE_SIZE);
+    }
+
+    public static void setSearchPageSize(TaskRepository repository, int searchPageSize) {
+
+        repository.setProperty(SEARCH_PAGE_SIZE, String.valueOf(searchPageSize));
+    }
+
+    public static int getSearchPrefetchPages(TaskRepository repository) {
+
+        return getIntProperty(repository, SEARCH_PREFETCH_PAGES, MantisClientSettings.DEFAULT_SEARCH_PREFETCH_PAGES);
+    }
+
+    public static void setSearchPrefetchPages(TaskRepository repository, int searchPrefetchPages) {
+
+        repository.setProperty(SEARCH_PREFETCH_PAGES, String.valueOf(searchPrefetchPages));
+    }
+
+    public static int getHttpMaxConnectionsPerHost(TaskRepository repository) {
+
+        return getIntProperty(repository, HTTP_MAX_CONNECTIONS_PER_HOST, MantisClientSettings.DEFAULT_HTTP_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    public static void setHttpMaxConnectionsPerHost(TaskRepository repository, int httpMaxConnectionsPerHost) {
+
+        repository.setProperty(HTTP_MAX_CONNECTIONS_PER_HOST, String.valueOf(httpMaxConnectionsPerHost));
+    }
+
+    public static int getHttpIdleTimeoutSeconds(TaskRepository repository) {
+
+        return getIntProperty(repository, HTTP_IDLE_TIMEOUT_SECONDS, MantisClientSettings.DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS);
+    }
+
+    public static void setHttpIdleTimeoutSeconds(TaskRepository repository, int httpIdleTimeoutSeconds) {
+
+        repository.setProperty(HTTP_IDLE_TIMEOUT_SECONDS, String.valueOf(httpIdleTimeoutSeconds));
+    }
+
+    public static boolean isHttpCompression(TaskRepository repository) {
+
+        return getBooleanProperty(repository, HTTP_COMPRESSION, MantisClientSettings.DEFAULT_HTTP_COMPRESSION);
+    }
+
+    public static void setHttpCompression(TaskRepository repository, boolean httpCompression) {
+
+        repository.setProperty(HTTP_COMPRESSION, String.valueOf(httpCompression));
+    }
+
+    public static boolean isStreamingSearch(TaskRepository repository) {
+
+        return getBooleanProperty(repository, STREAMING_SEARCH, MantisClientSettings.DEFAULT_STREAMING_SEARCH);
+    }
+
+    public static void setStreamingSearch(TaskRepository repository, boolean streamingSearch) {
+
+        repository.setProperty(STREAMING_SEARCH, String.valueOf(streamingSearch));
+    }
+
+    public static int getReadRetries(TaskRepository repository) {
+
+        return getIntProperty(repository, READ_RETRIES, MantisClientSettings.DEFAULT_READ_RETRIES);
+    }
+
+    public static void setReadRetries(TaskRepository repository, int readRetries) {
+
+        repository.setProperty(READ_RETRIES, String.valueOf(readRetries));
+    }
+
+    public static int getCircuitBreakerFailures(TaskRepository repository) {
+
+        return getIntProperty(repository, CIRCUIT_BREAKER_FAILURES, MantisClientSettings.DEFAULT_CIRCUIT_BREAKER_FAILURES);
+    }
+
+    public static void setCircuitBreakerFailures(TaskRepository repository, int circuitBreakerFailures) {
+
+        repository.setProperty(CIRCUIT_BREAKER_FAILURES, String.valueOf(circuitBreakerFailures));
+    }
+
+    public static int getCircuitBreakerOpenSeconds(TaskRepository repository) {
+
+        return getIntProperty(repository, CIRCUIT_BREAKER_OPEN_SECONDS, MantisClientSettings.DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS);
+    }
+
+    public static void setCircuitBreakerOpenSeconds(TaskRepository repository, int circuitBreakerOpenSeconds) {
+
+        repository.setProperty(CIRCUIT_BREAKER_OPEN_SECONDS, String.valueOf(circuitBreakerOpenSeconds));
+    }
+
+    /**
+     * @return the name of an <em>All Projects</em> filter which lists issues by their last update, most
+     *         recent first, or <code>null</code> if changed tasks are found by running the repository queries
+     */
+    public static String getChangedSinceFilter(TaskRepository repository) {
+
+        String filterName = repository.getProperty(CHANGED_SINCE_FILTER);
+        if (filterName == null || filterName.trim().length() == 0)
+            return null;
+
+        return filterName.trim();
+    }
+
+    public static void setChangedSinceFilter(TaskRepository repository, String filterName) {
+
+        repository.setProperty(CHANGED_SINCE_FILTER, filterName);
+    }
+
+    /**
+     * @return true if background synchronizations skip the queries whose results rarely change
+     */
+    public static boolean isAdaptiveQueryScheduling(TaskRepository repository) {
+
+        return getBooleanProperty(repository, ADAPTIVE_QUERY_SCHEDULING,
+                MantisClientSettings.DEFAULT_ADAPTIVE_QUERY_SCHEDULING);
+    }
+
+    public static void setAdaptiveQueryScheduling(TaskRepository repository, boolean adaptiveQueryScheduling) {
+
+        repository.setProperty(ADAPTIVE_QUERY_SCHEDULING, String.valueOf(adaptiveQueryScheduling));
+    }
+
+    public static int getSectionTtlHours(TaskRepository repository, CacheSection section) {
+
+        return getIntProperty(repository, getSectionTtlPropertyName(section), section.getDefaultTtlHours());
+    }
+
+    public static void setSectionTtlHours(TaskRepository repository, CacheSection section, int hours) {
+
+        repository.setProperty(getSectionTtlPropertyName(section), String.valueOf(hours));
+    }
+
+    private static String getSectionTtlPropertyName(CacheSection section) {
+
+        return SECTION_TTL_HOURS_PREFIX + section.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @param repository the task repository
+     * @return the client settings configured for the repository
+     */
+    public static MantisClientSettings getClientSettings(TaskRepository repository) {
+
+        MantisClientSettings settings = new MantisClientSettings();
+        settings.setRefreshConcurrency(getRefreshConcurrency(repository));
+        settings.setTaskDataConcurrency(getTaskDataConcurrency(repository));
+        settings.setRevalidateConfiguration(isRevalidateConfiguration(repository));
+        settings.setMaxConfigurationStalenessHours(getMaxConfigurationStalenessHours(repository));
+        settings.setLazyProjectConfiguration(isLazyProjectConfiguration(repository));
+        settings.setSearchPageSize(getSearchPageSize(repository));
+        settings.setSearchPrefetchPages(getSearchPrefetchPages(repository));
+        settings.setHttpMaxConnectionsPerHost(getHttpMaxConnectionsPerHost(repository));
+        settings.setHttpIdleTimeoutSeconds(getHttpIdleTimeoutSeconds(repository));
+        settings.setHttpCompression(isHttpCompression(repository));
+        settings.setStreamingSearch(isStreamingSearch(repository));
+        settings.setReadRetries(getReadRetries(repository));
+        settings.setCircuitBreakerFailures(getCircuitBreakerFailures(repository));
+        settings.setCircuitBreakerOpenSeconds(getCircuitBreakerOpenSeconds(repository));
+        for (CacheSection section : CacheSection.values())
+            settings.setSectionTtlHours(section, getSectionTtlHours(repository, section));
+        return settings;
+    }
+
+    private static int getIntProperty(TaskRepository repository, String propertyName, int defaultValue) {
+
+        String property = repository.getProperty(propertyName);
+
+        if (property == null)
+            return defaultValue;
+
+        try {
+            return Integer.parseInt(property.trim());
+        } catch (NumberFormatException e) {
+            MantisCorePlugin.warn("Invalid value '" + property + "' for repository property " + propertyName
+                    + " . Using default value '" + defaultValue + "'");
+            return defaultValue;
+        }
+    }
     
 	/**
 	 * Sets the category property on the repository if not already set
@@ -26,9 +26,14 @@ package com.itsolut.mantis.core;
 import static com.itsolut.mantis.core.MantisAttributeMapper.Attribute.PROJECT;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -47,6 +52,8 @@ import com.google.inject.Module;
 import com.itsolut.mantis.core.exception.MantisException;
 import com.itsolut.mantis.core.model.MantisIssueHistory;
 import com.itsolut.mantis.core.model.MantisIssueHistoryEntry;
+import com.itsolut.mantis.core.model.MantisProject;
+import com.itsolut.mantis.core.model.MantisSearch;
 import com.itsolut.mantis.core.model.MantisTicket;
 import com.itsolut.mantis.core.model.MantisUser;
 import com.itsolut.mantis.core.util.MantisUtils;
@@ -78,6 +85,14 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
     
     @Inject
     private StatusFactory statusFactory;
+    
+    private volatile IMantisQueryProvider queryProvider;
+    
+    private final QuerySynchronizationScheduler queryScheduler = new QuerySynchronizationScheduler();
+    
+    // weak keys, so that the results of a session which is never completed do not linger
+    private final Map<ISynchronizationSession, SynchronizationSearchCache> sessionSearches = Collections
+            .synchronizedMap(new WeakHashMap<ISynchronizationSession, SynchronizationSearchCache>());
 
     public MantisRepositoryConnector() {
 
@@ -85,6 +100,8 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
         
         injector.injectMembers(this);
         injector.injectMembers(MantisCorePlugin.getDefault());
+
+        listenForRemovedClients();
     }
 
     protected MantisRepositoryConnector(final Module dummy) {
@@ -103,6 +120,19 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
         this.statusFactory = statusFactory;
         this.tracer = tracer;
         
+        listenForRemovedClients();
+    }
+
+    private void listenForRemovedClients() {
+
+        // the searches of a discarded client are checked again from scratch
+        clientManager.setClientListener(new IMantisClientListener() {
+
+            public void clientRemoved(String repositoryUrl) {
+
+                queryScheduler.repositoryRemoved(repositoryUrl);
+            }
+        });
     }
 
     @Override
@@ -182,27 +212,46 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
     }
 
     @Override
-    public IStatus performQuery(TaskRepository repository, IRepositoryQuery query, TaskDataCollector resultCollector,
-            ISynchronizationSession event, IProgressMonitor monitor) {
+    public IStatus performQuery(final TaskRepository repository, IRepositoryQuery query, final TaskDataCollector resultCollector,
+            ISynchronizationSession event, final IProgressMonitor monitor) {
 
         try {
         
-            final List<MantisTicket> tickets = new ArrayList<MantisTicket>();
-            IMantisClient client;
             try {
-                client = clientManager.getRepository(repository);
-                client.search(MantisUtils.getMantisSearch(query), tickets, monitor);
-                for (MantisTicket ticket : tickets) {
-                    ticket.setLastChanged(null); // XXX Remove once we have a fix for
-                                                 // https://bugs.eclipse.org/bugs/show_bug.cgi?id=331733
-                    resultCollector.accept(offlineTaskHandler.createTaskDataFromPartialTicket(client, repository,
-                            ticket, monitor));
+                final IMantisClient client = clientManager.getRepository(repository);
+                MantisSearch search = MantisUtils.getMantisSearch(query);
+                IMantisTicketCollector collector = new IMantisTicketCollector() {
+                    
+                    public boolean accept(List<MantisTicket> tickets) throws MantisException {
+
+                        for (MantisTicket ticket : tickets) {
+                            ticket.setLastChanged(null); // XXX Remove once we have a fix for
+                                                         // https://bugs.eclipse.org/bugs/show_bug.cgi?id=331733
+                            try {
+                                resultCollector.accept(offlineTaskHandler.createTaskDataFromPartialTicket(client, repository,
+                                        ticket, monitor));
+                            } catch (CoreException e) {
+                                throw new MantisException(e);
+                            }
+                        }
+                        return true;
+                    }
+                };
+                
+                if (event != null) {
+                    // queries sharing a project and filter are served from a single search per session
+                    List<MantisTicket> tickets = getSearchCache(event, repository).search(client, search, monitor);
+                    if (!tickets.isEmpty())
+                        collector.accept(tickets);
+                } else {
+                    // each ticket is handed to the task list as soon as it arrives
+                    client.search(search, collector, monitor);
                 }
 
             } catch (MantisException e) {
+                if (e.getCause() instanceof CoreException)
+                    return ((CoreException) e.getCause()).getStatus();
                 return statusFactory.toStatus(null, e, repository);
-            } catch (CoreException e) {
-                return e.getStatus();
             }
             
             return Status.OK_STATUS;
@@ -232,26 +281,30 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
      * repository. Next check to see if the tasks have changed since the last synchronization. If
      * so, add their ids to a List.</p>
      * 
+     * @param search the search to run, shared by all queries with the same project and filter
+     * @param searchCache the search results of the current synchronization session
+     * @param resultIds receives the ids of all tasks matching the search
      * @param monitor
      * @return the ids of the changed tasks
      * @throws CoreException 
      */
-    private List<Integer> getChangedTasksByQuery(IRepositoryQuery query, TaskRepository repository, Date since,
-            IProgressMonitor monitor) throws CoreException {
+    private List<Integer> getChangedTasksByQuery(MantisSearch search, SynchronizationSearchCache searchCache,
+            TaskRepository repository, Date since, BitSet resultIds, IProgressMonitor monitor) throws CoreException {
 
-        tracer.trace(TraceLocation.SYNC, "Looking for tasks changed in query {0} since {1} .", query.getSummary(), since);
+        tracer.trace(TraceLocation.SYNC, "Looking for tasks changed in project {0}, filter {1} since {2} .", search.getProjectName(), search.getFilterName(), since);
         
-        final List<MantisTicket> tickets = new ArrayList<MantisTicket>();
         List<Integer> changedTickets = new ArrayList<Integer>();
 
         IMantisClient client;
         try {
             client = clientManager.getRepository(repository);
-            client.search(MantisUtils.getMantisSearch(query), tickets, Policy.subMonitorFor(monitor, 1));
+            List<MantisTicket> tickets = searchCache.search(client, search, Policy.subMonitorFor(monitor, 1));
 
-            for (MantisTicket ticket : tickets)
+            for (MantisTicket ticket : tickets) {
+                resultIds.set(ticket.getId());
                 if (ticket.getLastChanged() != null && ticket.getLastChanged().compareTo(since) > 0)
                     changedTickets.add(Integer.valueOf(ticket.getId()));
+            }
         } catch (MantisException e) {
            throw new CoreException(statusFactory.toStatus("Failed getting changed tasks.", e, repository));
         }
@@ -368,6 +421,54 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
 
         return (IRepositoryListener) clientManager;
     }
+    
+    /**
+     * Sets the source of the repository queries used for incremental synchronisation, for internal
+     * use in the UI module only.
+     * 
+     * <p><b>For internal use only</b></p>
+     * 
+     * @param queryProvider the query provider, may be <code>null</code>
+     */
+    public void setQueryProvider(IMantisQueryProvider queryProvider) {
+
+        this.queryProvider = queryProvider;
+    }
+    
+    /**
+     * Notes that the task is open in an editor, so that the searches containing it are checked on every
+     * synchronization, for internal use in the UI module only.
+     * 
+     * <p><b>For internal use only</b></p>
+     */
+    public void taskEditorOpened(ITask task) {
+
+        Integer taskId = toTaskId(task);
+        if (taskId != null)
+            queryScheduler.taskOpened(task.getRepositoryUrl(), taskId.intValue());
+    }
+    
+    /**
+     * Notes that the task is no longer open in an editor, for internal use in the UI module only.
+     * 
+     * <p><b>For internal use only</b></p>
+     */
+    public void taskEditorClosed(ITask task) {
+
+        Integer taskId = toTaskId(task);
+        if (taskId != null)
+            queryScheduler.taskClosed(task.getRepositoryUrl(), taskId.intValue());
+    }
+
+    private static Integer toTaskId(ITask task) {
+
+        // tasks which were not yet submitted have no numeric id
+        try {
+            return Integer.valueOf(task.getTaskId());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 
     @Override
     public ITaskMapping getTaskMapping(TaskData taskData) {
@@ -408,48 +509,159 @@ public class MantisRepositoryConnector extends AbstractRepositoryConnector {
         // checked it's date, this caused unnecessary SOAP traffic during
         // synchronization.
         event.setNeedsPerformQueries(false);
-        List<IRepositoryQuery> queries = getMantisQueriesFor(repository);
         
-        monitor.beginTask("", queries.size() * 2); // 1 for query, 1 for search call
+        // task ids are small positive numbers, so a bit set is a compact set of the changed ones
+        BitSet changedTaskIds = new BitSet();
         
-        for (IRepositoryQuery query : queries) {
-
-            for (Integer taskId : getChangedTasksByQuery(query, repository, since, monitor)) {
-                for (ITask task : event.getTasks()) {
-                    if (Integer.parseInt(task.getTaskId()) == taskId.intValue()) {
-                        event.setNeedsPerformQueries(true);
-                        event.markStale(task);
-                        
-                        tracer.trace(TraceLocation.SYNC, "Marking task {0} as stale.", task);
-                    }
-                }
+        String changedSinceFilter = MantisRepositoryConfiguration.getChangedSinceFilter(repository);
+        if (changedSinceFilter != null) {
+            monitor.beginTask("", 1);
+            getTasksChangedSince(changedSinceFilter, repository, since, changedTaskIds, monitor);
+        } else {
+            IMantisQueryProvider provider = queryProvider;
+            if (provider == null) {
+                tracer.trace(TraceLocation.SYNC, "No query provider available for {0}, marking all tasks as stale.", repository);
+                for (ITask task : event.getTasks())
+                    event.markStale(task);
+                event.setNeedsPerformQueries(true);
+                return;
             }
             
-            monitor.worked(1);
+            Collection<MantisSearch> searches = getDistinctSearches(provider.getQueries(repository));
+            SynchronizationSearchCache searchCache = new SynchronizationSearchCache(searches);
+            sessionSearches.put(event, searchCache);
+            
+            monitor.beginTask("", searches.size() * 2); // 1 for query, 1 for search call
+            
+            // searches requested by the user are always run
+            boolean adaptive = !event.isUser() && MantisRepositoryConfiguration.isAdaptiveQueryScheduling(repository);
+            
+            for (MantisSearch search : searches) {
+                
+                String searchKey = SynchronizationSearchCache.keyOf(search);
+                if (adaptive && !queryScheduler.isDue(repository.getRepositoryUrl(), searchKey, since)) {
+                    tracer.trace(TraceLocation.SYNC, "Skipping unchanging search for project {0}, filter {1} in this cycle.", search.getProjectName(), search.getFilterName());
+                    monitor.worked(2);
+                    continue;
+                }
+    
+                // changes made while the search was skipped are older than the current time stamp
+                Date searchSince = queryScheduler.getChangedSince(repository.getRepositoryUrl(), searchKey, since);
+                BitSet resultIds = new BitSet();
+                List<Integer> changedInSearch = getChangedTasksByQuery(search, searchCache, repository, searchSince, resultIds, monitor);
+                for (Integer taskId : changedInSearch)
+                    changedTaskIds.set(taskId.intValue());
+                
+                // tasks which left the results need the queries to run again, even though they may not have changed
+                if (queryScheduler.recordRun(repository.getRepositoryUrl(), searchKey, resultIds, !changedInSearch.isEmpty()))
+                    event.setNeedsPerformQueries(true);
+                
+                monitor.worked(1);
+            }
+        }
+        
+        if (!changedTaskIds.isEmpty()) {
+            for (ITask task : event.getTasks()) {
+                if (changedTaskIds.get(Integer.parseInt(task.getTaskId()))) {
+                    event.setNeedsPerformQueries(true);
+                    event.markStale(task);
+                    
+                    tracer.trace(TraceLocation.SYNC, "Marking task {0} as stale.", task);
+                }
+            }
         }
         
         monitor.done();
     }
 
-    private List<IRepositoryQuery> getMantisQueriesFor(TaskRepository taskRespository) {
+    /**
+     * Collects the ids of the tasks changed after <tt>since</tt> using a filter sorted by last update
+     * 
+     * <p>The issues are read most recently updated first, so the scan stops at the first issue which
+     * has not changed since the last synchronization and a quiet repository costs a single page.</p>
+     */
+    private void getTasksChangedSince(String filterName, TaskRepository repository, final Date since,
+            final BitSet changedTaskIds, IProgressMonitor monitor) throws CoreException {
 
-        List<IRepositoryQuery> queries = new ArrayList<IRepositoryQuery>();
-//        for (IRepositoryQuery query : TasksUiInternal.getTaskList().getQueries()) {
-//
-//            boolean isMantisQuery = MantisCorePlugin.REPOSITORY_KIND.equals(query.getConnectorKind());
-//            boolean belongsToThisRepository = query.getRepositoryUrl().equals(taskRespository.getUrl());
-//
-//            if (isMantisQuery && belongsToThisRepository) {
-//                queries.add(query);
-//            }
-//        }
+        tracer.trace(TraceLocation.SYNC, "Scanning filter {0} for tasks changed since {1} .", filterName, since);
+        
+        MantisSearch search = new MantisSearch(MantisProject.ALL_PROJECTS.getName(), filterName);
+        search.setLimit(0); // bounded by the last update instead
+        
+        try {
+            clientManager.getRepository(repository).search(search, new IMantisTicketCollector() {
+                
+                public boolean accept(List<MantisTicket> tickets) {
 
-        return queries;
+                    for (MantisTicket ticket : tickets) {
+                        if (ticket.getLastChanged() == null || ticket.getLastChanged().compareTo(since) <= 0)
+                            return false;
+                        changedTaskIds.set(ticket.getId());
+                    }
+                    return true;
+                }
+            }, Policy.subMonitorFor(monitor, 1));
+        } catch (MantisException e) {
+            throw new CoreException(statusFactory.toStatus("Failed getting changed tasks.", e, repository));
+        }
+        
+        tracer.trace(TraceLocation.SYNC, "Found {0} changed tickets.", changedTaskIds.cardinality());
+    }
+
+    /**
+     * Reduces the <tt>queries</tt> to one search per project and filter pair
+     * 
+     * <p>Queries which only differ in their limit are run once, using the largest limit.</p>
+     */
+    private Collection<MantisSearch> getDistinctSearches(Collection<IRepositoryQuery> queries) {
+
+        Map<String, MantisSearch> searches = new LinkedHashMap<String, MantisSearch>();
+        for (IRepositoryQuery query : queries) {
+            
+            MantisSearch search;
+            try {
+                search = MantisUtils.getMantisSearch(query);
+            } catch (RuntimeException e) {
+                MantisCorePlugin.warn("Unable to read query " + query.getSummary() + " , skipping it.", e);
+                continue;
+            }
+            
+            String key = SynchronizationSearchCache.keyOf(search);
+            MantisSearch existing = searches.get(key);
+            if (existing == null)
+                searches.put(key, search);
+            else if (existing.getLimit() > 0 && (search.getLimit() <= 0 || search.getLimit() > existing.getLimit()))
+                existing.setLimit(search.getLimit()); // a non-positive limit is unbounded
+        }
+        
+        tracer.trace(TraceLocation.SYNC, "Reduced {0} queries to {1} distinct searches.", queries.size(), searches.size());
+        
+        return searches.values();
+    }
+
+    /**
+     * @return the search results of the <tt>session</tt>, created on first use
+     */
+    private SynchronizationSearchCache getSearchCache(ISynchronizationSession session, TaskRepository repository) {
+
+        synchronized (sessionSearches) {
+            SynchronizationSearchCache searchCache = sessionSearches.get(session);
+            if (searchCache == null) {
+                IMantisQueryProvider provider = queryProvider;
+                Collection<MantisSearch> searches = provider == null ? Collections.<MantisSearch> emptyList()
+                        : getDistinctSearches(provider.getQueries(repository));
+                searchCache = new SynchronizationSearchCache(searches);
+                sessionSearches.put(session, searchCache);
+            }
+            return searchCache;
+        }
     }
 
     @Override
     public void postSynchronization(ISynchronizationSession event, IProgressMonitor monitor) throws CoreException {
 
+        sessionSearches.remove(event);
+        
         try {
             monitor.beginTask("", 1);
             if (event.isFullSynchronization()) {
@@ -13,6 +13,10 @@
 package com.itsolut.mantis.core;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.eclipse.core.runtime.*;
 import org.eclipse.mylyn.tasks.core.*;
@@ -21,6 +25,7 @@ import org.eclipse.mylyn.tasks.core.data.*;
 import org.eclipse.osgi.util.NLS;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.itsolut.mantis.core.MantisAttributeMapper.Attribute;
@@ -30,6 +35,7 @@ import com.itsolut.mantis.core.exception.TicketNotFoundException;
 import com.itsolut.mantis.core.model.*;
 import com.itsolut.mantis.core.model.MantisRelationship.RelationType;
 import com.itsolut.mantis.core.model.MantisTicket.Key;
+import com.itsolut.mantis.core.util.BoundedCompletionService;
 import com.itsolut.mantis.core.util.MantisUtils;
 
 /**
@@ -44,6 +50,12 @@ public class MantisTaskDataHandler extends AbstractTaskDataHandler {
     private final MantisTaskDataMigrator migrator = new MantisTaskDataMigrator();
 	private final Tracer tracer;
 
+    /**
+     * Shared by all repositories, the per-call concurrency is bounded by {@link MantisClientSettings#getTaskDataConcurrency()}
+     */
+    private static final ExecutorService TASK_DATA_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("Mantis task data retrieval %d").setDaemon(true).build());
+
     private static final String CONTEXT_ATTACHMENT_FILENAME = "mylyn-context.zip";
 
     private static final String CONTEXT_ATTACHMENT_DESCRIPTION = "mylyn/context/zip";
@@ -267,10 +279,20 @@ public class MantisTaskDataHandler extends AbstractTaskDataHandler {
     public TaskData getTaskData(TaskRepository repository, String taskId,
             IProgressMonitor monitor) throws CoreException {
 
+        return getTaskData(repository, taskId, false, monitor);
+    }
+
+    /**
+     * @param searched true if the task is retrieved while synchronizing the results of recent searches, which
+     *            may show that the stored issue is still current
+     */
+    private TaskData getTaskData(TaskRepository repository, String taskId, boolean searched,
+            IProgressMonitor monitor) throws CoreException {
+
         int id = Integer.parseInt(taskId);
         try {
             IMantisClient client = clientManager.getRepository(repository);
-            MantisTicket ticket = client.getTicket(id, monitor);
+            MantisTicket ticket = searched ? client.getSearchedTicket(id, monitor) : client.getTicket(id, monitor);
             return createTaskDataFromTicket(client, repository, ticket, monitor);
         } catch ( TicketNotFoundException e) {
         	throw new CoreException(statusFactory.toStatus(e.getMessage(), e, repository));
@@ -280,6 +302,85 @@ public class MantisTaskDataHandler extends AbstractTaskDataHandler {
         }
     }
 
+    @Override
+    public boolean canGetMultiTaskData(TaskRepository taskRepository) {
+
+        return true;
+    }
+
+    /**
+     * Retrieves the tasks in parallel and hands each one to the <tt>collector</tt> as soon as it is available
+     * 
+     * <p>The collector is only invoked from the calling thread. Tasks which can not be retrieved are reported
+     * through {@link TaskDataCollector#failed(String, IStatus)} and do not abort the retrieval of the others.</p>
+     */
+    @Override
+    public void getMultiTaskData(final TaskRepository repository, Set<String> taskIds, TaskDataCollector collector,
+            IProgressMonitor monitor) throws CoreException {
+
+        final SubMonitor subMonitor = SubMonitor.convert(monitor, "Retrieving tasks", taskIds.size());
+        
+        // progress monitors are not thread-safe, so the workers only get to see the cancellation state
+        final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+
+                return subMonitor.isCanceled();
+            }
+        };
+        
+        int concurrency = MantisRepositoryConfiguration.getClientSettings(repository).getTaskDataConcurrency();
+        BoundedCompletionService<TaskDataResult> completionService = new BoundedCompletionService<TaskDataResult>(
+                TASK_DATA_EXECUTOR, concurrency);
+        
+        tracer.trace(TraceLocation.SYNC, "Retrieving {0} tasks, {1} concurrent requests", taskIds.size(), concurrency);
+        
+        for (final String taskId : taskIds) {
+            completionService.submit(new Callable<TaskDataResult>() {
+                public TaskDataResult call() {
+
+                    return retrieveTaskData(repository, taskId, workerMonitor);
+                }
+            });
+        }
+        
+        while (completionService.hasPending()) {
+            
+            TaskDataResult result;
+            try {
+                result = completionService.take(subMonitor).get();
+            } catch (ExecutionException e) {
+                // not expected, retrieveTaskData reports failures as part of the result
+                completionService.cancelAll();
+                throw new CoreException(statusFactory.toStatus("Failed retrieving tasks : " + e.getCause().getMessage() + " .",
+                        e.getCause(), repository));
+            } catch (InterruptedException e) {
+                completionService.cancelAll();
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            }
+            
+            if (result.taskData != null)
+                collector.accept(result.taskData);
+            else
+                collector.failed(result.taskId, result.status);
+            
+            subMonitor.worked(1);
+        }
+    }
+
+    private TaskDataResult retrieveTaskData(TaskRepository repository, String taskId, IProgressMonitor monitor) {
+
+        try {
+            return new TaskDataResult(taskId, getTaskData(repository, taskId, true, monitor), null);
+        } catch (CoreException e) {
+            return new TaskDataResult(taskId, null, e.getStatus());
+        } catch (RuntimeException e) {
+            return new TaskDataResult(taskId, null, statusFactory.toStatus("Ticket download from "
+                    + repository.getRepositoryUrl() + " for task " + taskId + " failed : " + e.getMessage() + " .", e, repository));
+        }
+    }
+
     private void updateTaskData(TaskRepository repository,
             TaskData data, IMantisClient client,
             MantisTicket ticket, IProgressMonitor monitor) throws CoreException, MantisException {
@@ -916,6 +1017,23 @@ public class MantisTaskDataHandler extends AbstractTaskDataHandler {
         return commentMapper;
     }
     
+    /**
+     * The outcome of retrieving a single task, either the task data or the reason of the failure
+     */
+    private static class TaskDataResult {
+
+        private final String taskId;
+        private final TaskData taskData;
+        private final IStatus status;
+
+        public TaskDataResult(String taskId, TaskData taskData, IStatus status) {
+
+            this.taskId = taskId;
+            this.taskData = taskData;
+            this.status = status;
+        }
+    }
+
     private static interface CustomFieldValueSource {
         
         String getCustomFieldValue(MantisCustomField customField);
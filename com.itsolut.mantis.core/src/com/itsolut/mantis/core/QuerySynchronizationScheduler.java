@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Decides which searches are checked for changes during background synchronizations
+ * 
+ * <p>A search whose results did not change is skipped on a growing number of following cycles: 1, 3,
+ * 7 and so on up to {@value #MAX_SKIPPED_CYCLES}. The count is reset as soon as its results change. A
+ * search is never skipped while one of its tasks is open in an editor.</p>
+ * 
+ * <p>The synchronization time stamp moves on during the skipped cycles, so a skipped search keeps the time
+ * stamp of the first cycle which skipped it and looks for changes from there when it is checked again.</p>
+ * 
+ * <p>The state of the searches of a repository is kept until its client is discarded.</p>
+ * 
+ * <p>Instances are thread-safe.</p>
+ */
+final class QuerySynchronizationScheduler {
+
+    static final int MAX_SKIPPED_CYCLES = 31;
+
+    private final Map<String, SearchState> states = new HashMap<String, SearchState>();
+
+    /**
+     * The number of editors open on each task, since a task may be open in several editors
+     */
+    private final Map<String, Map<Integer, Integer>> openTaskCounts = new HashMap<String, Map<Integer, Integer>>();
+
+    synchronized void taskOpened(String repositoryUrl, int taskId) {
+
+        Map<Integer, Integer> taskCounts = openTaskCounts.get(repositoryUrl);
+        if (taskCounts == null) {
+            taskCounts = new HashMap<Integer, Integer>();
+            openTaskCounts.put(repositoryUrl, taskCounts);
+        }
+        Integer count = taskCounts.get(taskId);
+        taskCounts.put(taskId, count == null ? 1 : count + 1);
+    }
+
+    synchronized void taskClosed(String repositoryUrl, int taskId) {
+
+        Map<Integer, Integer> taskCounts = openTaskCounts.get(repositoryUrl);
+        if (taskCounts == null)
+            return;
+
+        Integer count = taskCounts.get(taskId);
+        if (count == null)
+            return;
+
+        if (count > 1) {
+            taskCounts.put(taskId, count - 1);
+        } else {
+            taskCounts.remove(taskId);
+            if (taskCounts.isEmpty())
+                openTaskCounts.remove(repositoryUrl);
+        }
+    }
+
+    /**
+     * Forgets the state of the searches of the repository, so that they are all checked on the next cycle
+     */
+    synchronized void repositoryRemoved(String repositoryUrl) {
+
+        String prefix = repositoryUrl + '\0';
+        for (Iterator<String> keys = states.keySet().iterator(); keys.hasNext();)
+            if (keys.next().startsWith(prefix))
+                keys.remove();
+    }
+
+    /**
+     * @param since the synchronization time stamp of the current cycle
+     * @return true if the search should be checked during the current cycle; a false answer counts as
+     *         one skipped cycle
+     */
+    synchronized boolean isDue(String repositoryUrl, String searchKey, Date since) {
+
+        SearchState state = states.get(repositoryUrl + '\0' + searchKey);
+        if (state == null || state.cyclesToSkip == 0)
+            return true;
+
+        Map<Integer, Integer> taskCounts = openTaskCounts.get(repositoryUrl);
+        if (taskCounts != null)
+            for (Integer taskId : taskCounts.keySet())
+                if (state.resultIds.get(taskId))
+                    return true;
+
+        state.cyclesToSkip--;
+        if (state.skippedSince == null)
+            state.skippedSince = since;
+        return false;
+    }
+
+    /**
+     * @param since the synchronization time stamp of the current cycle
+     * @return the time after which changes to the tasks of the search have not been looked for yet
+     */
+    synchronized Date getChangedSince(String repositoryUrl, String searchKey, Date since) {
+
+        SearchState state = states.get(repositoryUrl + '\0' + searchKey);
+        if (state == null || state.skippedSince == null || state.skippedSince.after(since))
+            return since;
+
+        return state.skippedSince;
+    }
+
+    /**
+     * Records the outcome of checking a search
+     * 
+     * @param resultIds the ids of the tasks currently matching the search
+     * @param hasChangedTasks true if some of these tasks changed since the last synchronization
+     * @return true if tasks entered or left the results since the search was last checked, or if it was not
+     *         checked before, e.g. during a previous session
+     */
+    synchronized boolean recordRun(String repositoryUrl, String searchKey, BitSet resultIds, boolean hasChangedTasks) {
+
+        String key = repositoryUrl + '\0' + searchKey;
+        SearchState state = states.get(key);
+        if (state == null) {
+            states.put(key, new SearchState(resultIds));
+            return true;
+        }
+
+        boolean membershipChanged = !state.resultIds.equals(resultIds);
+        state.resultIds = resultIds;
+        state.skippedSince = null;
+
+        if (membershipChanged || hasChangedTasks) {
+            state.unchangedRuns = 0;
+            state.cyclesToSkip = 0;
+        } else {
+            state.unchangedRuns++;
+            state.cyclesToSkip = Math.min((1 << Math.min(state.unchangedRuns, 30)) - 1, MAX_SKIPPED_CYCLES);
+        }
+
+        return membershipChanged;
+    }
+
+    private static class SearchState {
+
+        private BitSet resultIds;
+        private int unchangedRuns;
+        private int cyclesToSkip;
+        private Date skippedSince;
+
+        public SearchState(BitSet resultIds) {
+
+            this.resultIds = resultIds;
+        }
+    }
+}
@@ -37,6 +37,8 @@ public class StandaloneMantisCorePluginModule extends AbstractModule {
         bind(MantisAttachmentHandler.class);
         bind(MantisTaskDataHandler.class);
         bind(IMantisClientManager.class).to(MantisClientManager.class);
+        bind(IMantisCacheStore.class).to(FileMantisCacheStore.class);
+        bind(IMantisIssueStore.class).to(FileMantisIssueStore.class);
         bind(MantisCommentMapper.class);
         bind(IPath.class).annotatedWith(RepositoryPersistencePath.class).toProvider(StandaloneRepositoryPersistencePathProvider.class);
         bind(MantisRepositoryConnector.class).toInstance(mantisRepositoryConnector);
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
+import com.itsolut.mantis.core.model.MantisSearch;
+import com.itsolut.mantis.core.model.MantisTicket;
+import com.itsolut.mantis.core.util.SingleFlight;
+
+/**
+ * Holds the search results of a single synchronization session
+ * 
+ * <p>Each project and filter pair is searched once, with the largest limit of the queries which
+ * use it, and every query is served from that result.</p>
+ */
+final class SynchronizationSearchCache {
+
+    static String keyOf(MantisSearch search) {
+
+        return search.getProjectName() + '\0' + search.getFilterName();
+    }
+
+    private static boolean covers(int cachedLimit, int cachedSize, int limit) {
+
+        // a non-positive limit is unbounded
+        return cachedLimit <= 0 || cachedSize < cachedLimit || (limit > 0 && limit <= cachedLimit);
+    }
+
+    private final Map<String, Integer> limits = new ConcurrentHashMap<String, Integer>();
+
+    private final Map<String, SearchResult> results = new ConcurrentHashMap<String, SearchResult>();
+
+    private final SingleFlight<String, SearchResult> flight = new SingleFlight<String, SearchResult>();
+
+    /**
+     * @param searches the searches expected during the session, which decide the limit used for each pair
+     */
+    SynchronizationSearchCache(Collection<MantisSearch> searches) {
+
+        for (MantisSearch search : searches)
+            limits.put(keyOf(search), Integer.valueOf(search.getLimit()));
+    }
+
+    /**
+     * @return the tickets matching the <tt>search</tt>, at most as many as its limit
+     */
+    List<MantisTicket> search(final IMantisClient client, final MantisSearch search, final IProgressMonitor monitor)
+            throws MantisException {
+
+        final String key = keyOf(search);
+        final int limit = search.getLimit();
+
+        SearchResult result = results.get(key);
+        // a joined search started for a smaller limit is not enough, in which case we search again
+        while (result == null || !covers(result.limit, result.tickets.size(), limit)) {
+            try {
+                result = flight.execute(key, new Callable<SearchResult>() {
+
+                    public SearchResult call() throws Exception {
+
+                        Integer expectedLimit = limits.get(key);
+                        int fetchLimit = expectedLimit != null && covers(expectedLimit.intValue(), Integer.MAX_VALUE, limit)
+                                ? expectedLimit.intValue() : limit;
+
+                        MantisSearch fetch = new MantisSearch(search.getProjectName(), search.getFilterName());
+                        fetch.setLimit(fetchLimit);
+                        List<MantisTicket> tickets = new ArrayList<MantisTicket>();
+                        client.search(fetch, tickets, monitor);
+
+                        SearchResult fetched = new SearchResult(fetchLimit, tickets);
+                        results.put(key, fetched);
+                        return fetched;
+                    }
+                }, monitor);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof MantisException)
+                    throw (MantisException) e.getCause();
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new MantisLocalException(e.getCause());
+            }
+        }
+
+        if (limit > 0 && result.tickets.size() > limit)
+            return result.tickets.subList(0, limit);
+
+        return result.tickets;
+    }
+
+    private static class SearchResult {
+
+        private final int limit;
+        private final List<MantisTicket> tickets;
+
+        public SearchResult(int limit, List<MantisTicket> tickets) {
+
+            this.limit = limit;
+            this.tickets = Collections.unmodifiableList(tickets);
+        }
+    }
+}
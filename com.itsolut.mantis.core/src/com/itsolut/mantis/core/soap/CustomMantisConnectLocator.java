@@ -8,12 +8,17 @@ import javax.xml.rpc.Call;
 import javax.xml.rpc.ServiceException;
 
 import org.apache.axis.EngineConfiguration;
+import org.apache.axis.SimpleTargetedChain;
+import org.apache.axis.configuration.SimpleProvider;
 import org.apache.axis.transport.http.HTTPConstants;
+import org.apache.commons.httpclient.HttpConnectionManager;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.WebUtil;
 import org.eclipse.mylyn.internal.provisional.commons.soap.SoapHttpSender;
 
+import com.itsolut.mantis.core.MantisClientSettings;
 import com.itsolut.mantis.core.MantisCorePlugin;
+import com.itsolut.mantis.core.Tracer;
 
 import biz.futureware.mantis.rpc.soap.client.MantisConnectLocator;
 
@@ -31,6 +36,10 @@ public class CustomMantisConnectLocator extends MantisConnectLocator {
 
     private AbstractWebLocation location;
 
+    private MantisClientSettings settings = new MantisClientSettings();
+
+    private Tracer tracer;
+
     public CustomMantisConnectLocator() {
 
     }
@@ -45,6 +54,25 @@ public class CustomMantisConnectLocator extends MantisConnectLocator {
         super(wsdlLoc, name);
     }
 
+    /**
+     * Sends the calls over http and https through a {@link MantisHttpSender} of its own, using the
+     * <tt>connectionManager</tt>, so that the calls of different repositories never share a pool
+     */
+    public CustomMantisConnectLocator(EngineConfiguration config, HttpConnectionManager connectionManager) {
+
+        super(withTransport(config, connectionManager));
+    }
+
+    private static EngineConfiguration withTransport(EngineConfiguration config,
+            HttpConnectionManager connectionManager) {
+
+        SimpleProvider provider = new SimpleProvider(config);
+        SimpleTargetedChain transport = new SimpleTargetedChain(new MantisHttpSender(connectionManager));
+        provider.deployTransport("http", transport);
+        provider.deployTransport("https", transport);
+        return provider;
+    }
+
     public void setLocation(AbstractWebLocation location) {
 
         this.location = location;
@@ -55,6 +83,16 @@ public class CustomMantisConnectLocator extends MantisConnectLocator {
         return location;
     }
 
+    public void setSettings(MantisClientSettings settings) {
+
+        this.settings = settings;
+    }
+
+    public void setTracer(Tracer tracer) {
+
+        this.tracer = tracer;
+    }
+
     @Override
     public Call createCall() throws ServiceException {
 
@@ -63,6 +101,14 @@ public class CustomMantisConnectLocator extends MantisConnectLocator {
         String userAgent = createUserAgent();
 
         call.setProperty(SoapHttpSender.LOCATION, location);
+        call.setProperty(MantisHttpSender.IDLE_TIMEOUT_MILLIS, Long.valueOf(settings.getHttpIdleTimeoutSeconds() * 1000l));
+        if (tracer != null)
+            call.setProperty(MantisHttpSender.TRACER, tracer);
+
+        // the transport decompresses gzip responses while they are read, and rejects any other encoding,
+        // so deflate is not offered; servers which do not compress simply answer uncompressed
+        if (settings.isHttpCompression())
+            call.setProperty(HTTPConstants.MC_ACCEPT_GZIP, Boolean.TRUE);
 
         // The Squid proxy server seems to choke unless this is set
         Map<String, Object> headers = new Hashtable<String, Object>();
@@ -10,39 +10,62 @@
  *******************************************************************************/
 package com.itsolut.mantis.core.soap;
 
+import java.io.InterruptedIOException;
 import java.math.BigInteger;
 import java.net.MalformedURLException;
+import java.net.SocketException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.rpc.Call;
 import javax.xml.rpc.ServiceException;
 import javax.xml.rpc.Stub;
 
 import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
 import org.apache.axis.configuration.FileProvider;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.NoHttpResponseException;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.net.AuthenticationType;
 import org.eclipse.mylyn.commons.net.Policy;
 import org.eclipse.mylyn.internal.provisional.commons.soap.AbstractSoapClient;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 import biz.futureware.mantis.rpc.soap.client.*;
 
 import com.google.common.collect.Lists;
+import com.itsolut.mantis.core.MantisClientSettings;
+import com.itsolut.mantis.core.MantisCorePlugin;
 import com.itsolut.mantis.core.SourceForgeConstants;
+import com.itsolut.mantis.core.TraceLocation;
+import com.itsolut.mantis.core.Tracer;
 import com.itsolut.mantis.core.exception.MantisException;
 import com.itsolut.mantis.core.exception.MantisLocalException;
 import com.itsolut.mantis.core.exception.MantisRemoteException;
 import com.itsolut.mantis.core.exception.TicketNotFoundException;
 import com.itsolut.mantis.core.model.MantisIssueHistory;
 import com.itsolut.mantis.core.model.MantisIssueHistoryEntry;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+import com.itsolut.mantis.core.util.CircuitBreaker;
+import com.itsolut.mantis.core.util.SingleFlight;
 
 /**
  * Represents a Mantis repository that is accessed through the MantisConnect SOAP Interface.
@@ -57,15 +80,71 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
      */
     public static final String SOAP_API_LOCATION = "/api/soap/mantisconnect.php";
 
+    private static final long BACKOFF_BASE_MILLIS = 500;
+
+    private static final long BACKOFF_MAX_MILLIS = 8000;
+
+    private static final long CANCELLATION_POLL_MILLIS = 100;
+
 	private transient MantisConnectPortType soap;
 
     private AbstractWebLocation location;
 
-    public MantisAxis1SoapClient(AbstractWebLocation webLocation) throws MantisException {
+    private final MantisClientSettings settings;
+
+    private final Tracer tracer;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * The pool of connections to the repository, shared by the SOAP stubs and the streaming searches
+     */
+    private final MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+
+    private final Random jitter = new Random();
+
+    private final MantisStreamingSearchClient streamingClient;
+
+    /**
+     * Set once a page of issue headers could not be parsed from the stream, after which the streaming parser
+     * is no longer tried for this client
+     */
+    private final AtomicBoolean streamingUnsupported = new AtomicBoolean();
+
+    private final SingleFlight<List<Object>, Object> readFlight = new SingleFlight<List<Object>, Object>();
+
+    /**
+     * Incremented after each write, so that reads are only shared between callers which issued them since
+     * the same write
+     */
+    private final AtomicInteger writeGeneration = new AtomicInteger();
+
+    public MantisAxis1SoapClient(AbstractWebLocation webLocation, MantisClientSettings settings, Tracer tracer) throws MantisException {
 
         synchronized ( this ) {
         
             this.location = webLocation;
+            this.settings = settings;
+            this.tracer = tracer;
+            this.circuitBreaker = new CircuitBreaker(settings.getCircuitBreakerFailures(),
+                    settings.getCircuitBreakerOpenSeconds(), TimeUnit.SECONDS) {
+
+                @Override
+                protected void stateChanged(State previous, State current) {
+
+                    MantisAxis1SoapClient.this.tracer.trace(TraceLocation.MAIN,
+                            "Circuit breaker for {0} changed from {1} to {2} after {3} consecutive failures.",
+                            location.getUrl(), previous, current, getConsecutiveFailures());
+                }
+            };
+
+            HttpConnectionManagerParams params = connectionManager.getParams();
+            params.setDefaultMaxConnectionsPerHost(settings.getHttpMaxConnectionsPerHost());
+            params.setMaxTotalConnections(Math.max(params.getMaxTotalConnections(), settings.getHttpMaxConnectionsPerHost()));
+            // a pooled connection may have been closed by the server while idle
+            params.setStaleCheckingEnabled(true);
+
+            this.streamingClient = new MantisStreamingSearchClient(webLocation, connectionManager, settings, tracer);
     
             soap = this.getSOAP();
     
@@ -125,8 +204,10 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
             try {
                 FileProvider provider = new FileProvider(getClass().getResourceAsStream(
                         "client-config.wsdd"));
-                CustomMantisConnectLocator locator = new CustomMantisConnectLocator(provider);
+                CustomMantisConnectLocator locator = new CustomMantisConnectLocator(provider, connectionManager);
                 locator.setLocation(getLocation());
+                locator.setSettings(settings);
+                locator.setTracer(tracer);
 
                 soap = locator.getMantisConnectPort(new URL(location.getUrl() + SOAP_API_LOCATION));
             } catch (ServiceException e) {
@@ -163,6 +244,144 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     @Override
     protected <T> T call(IProgressMonitor monitor, Callable<T> runnable) throws MantisException {
 
+        try {
+            return guardedCall(monitor, runnable, 0);
+        } finally {
+            // reads issued from now on must not join reads which may have started before this write
+            writeGeneration.incrementAndGet();
+        }
+    }
+
+    /**
+     * Calls an operation which does not modify the repository, repeating it if the repository could not be
+     * reached
+     * 
+     * <p>Concurrent reads with the same <tt>key</tt> share a single request and its result, which callers
+     * must therefore not modify.</p>
+     * 
+     * @param key the key built by {@link #key(String, Object...)}
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(final IProgressMonitor monitor, List<Object> key, final Callable<T> runnable)
+            throws MantisException {
+
+        Callable<Object> request = new Callable<Object>() {
+
+            public Object call() throws MantisException {
+
+                return guardedCall(monitor, runnable, settings.getReadRetries());
+            }
+        };
+
+        IProgressMonitor waitMonitor = Policy.monitorFor(monitor);
+        while (true) {
+            try {
+                return (T) readFlight.execute(key, request, waitMonitor);
+            } catch (ExecutionException e) {
+                // the caller which sent the shared request was cancelled, this one still needs the result
+                if (e.getCause() instanceof OperationCanceledException && !waitMonitor.isCanceled())
+                    continue;
+                throw MantisSoapClient.toMantisException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return the key identifying a read of the <tt>operation</tt> with the <tt>arguments</tt> since the last
+     *         write
+     */
+    List<Object> key(String operation, Object... arguments) {
+
+        List<Object> key = new ArrayList<Object>(arguments.length + 2);
+        key.add(operation);
+        key.add(Integer.valueOf(writeGeneration.get()));
+        key.addAll(Arrays.asList(arguments));
+        return key;
+    }
+
+    private <T> T guardedCall(IProgressMonitor monitor, Callable<T> runnable, int retries) throws MantisException {
+
+        for (int attempt = 0;; attempt++) {
+
+            if (!circuitBreaker.allowRequest())
+                throw new MantisRemoteException("Requests to " + location.getUrl() + " are suspended after "
+                        + circuitBreaker.getConsecutiveFailures()
+                        + " consecutive failures to reach the repository, it will be tried again shortly.");
+
+            try {
+                T result = unguardedCall(monitor, runnable);
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (MantisException e) {
+                if (!isUnreachable(e)) {
+                    // the repository did answer, e.g. with a fault
+                    circuitBreaker.recordSuccess();
+                    throw e;
+                }
+
+                circuitBreaker.recordFailure();
+                if (attempt >= retries)
+                    throw e;
+
+                tracer.trace(TraceLocation.MAIN, "Attempt {0} to reach {1} failed, retrying : {2}", attempt + 1,
+                        location.getUrl(), e.getMessage());
+                backOff(attempt, monitor);
+            }
+        }
+    }
+
+    /**
+     * Waits for a random delay between half and all of an exponentially growing ceiling, so that clients which
+     * failed together do not retry together
+     */
+    private void backOff(int attempt, IProgressMonitor monitor) throws MantisException {
+
+        long ceiling = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(attempt, 16));
+        long delay = ceiling / 2 + (long) (jitter.nextDouble() * (ceiling / 2));
+        long deadline = System.currentTimeMillis() + delay;
+
+        try {
+            for (long remaining = delay; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                Policy.checkCanceled(monitor);
+                Thread.sleep(Math.min(remaining, CANCELLATION_POLL_MILLIS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MantisLocalException(e);
+        }
+    }
+
+    /**
+     * @return true if the failure means that the repository could not be reached, as opposed to an answer from
+     *         the repository
+     */
+    static boolean isUnreachable(MantisException e) {
+
+        for (Throwable cause = e.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException || cause instanceof SocketException
+                    || cause instanceof UnknownHostException || cause instanceof NoHttpResponseException)
+                return true;
+            if (cause instanceof AxisFault && isUnavailableStatus((AxisFault) cause))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static boolean isUnavailableStatus(AxisFault fault) {
+
+        Element statusCode = fault.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HTTPERRORCODE);
+        if (statusCode == null)
+            return false;
+
+        String status = statusCode.getTextContent().trim();
+        return String.valueOf(HttpStatus.SC_BAD_GATEWAY).equals(status)
+                || String.valueOf(HttpStatus.SC_SERVICE_UNAVAILABLE).equals(status)
+                || String.valueOf(HttpStatus.SC_GATEWAY_TIMEOUT).equals(status);
+    }
+
+    private <T> T unguardedCall(IProgressMonitor monitor, Callable<T> runnable) throws MantisException {
+
         try {
             return super.call(monitor, runnable);
         } catch (MantisException e) {
@@ -234,7 +453,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public IssueData getIssueData(final int issueId, IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<IssueData>() {
+        return read(monitor, key("mc_issue_get", issueId), new Callable<IssueData>() {
 
             public IssueData call() throws MantisException, RemoteException {
 
@@ -254,7 +473,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public byte[] getIssueAttachment(final int attachmentID, final IProgressMonitor monitor) throws MantisException {
 
-        byte[] attachment = call(monitor, new Callable<byte[]>() {
+        byte[] attachment = read(monitor, key("mc_issue_attachment_get", attachmentID), new Callable<byte[]>() {
 
             public byte[] call() throws Exception {
 
@@ -298,36 +517,102 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
         });
     }
 
-    public IssueHeaderData[] getIssueHeaders(final int projectId, final int filterId, final int limit,
+    /**
+     * Retrieves a page of the issues matching a filter, passing each header to the <tt>consumer</tt> as it is
+     * read
+     */
+    public void getIssueHeaders(final int projectId, final int filterId, final int page, final int pageSize,
+            IssueHeaderConsumer consumer, IProgressMonitor monitor) throws MantisException {
+
+        readIssueHeaders(monitor, key("mc_filter_get_issue_headers", projectId, filterId, page, pageSize), consumer,
+                new IssueHeaderRequest() {
+
+                    @Override
+                    void stream(IssueHeaderConsumer consumer, IProgressMonitor monitor) throws MantisException {
+
+                        streamingClient.getIssueHeaders(projectId, filterId, page, pageSize, consumer, monitor);
+                    }
+
+                    @Override
+                    IssueHeaderData[] load() throws Exception {
+
+                        return getSOAP().mc_filter_get_issue_headers(getUsername(), getPassword(),
+                                BigInteger.valueOf(projectId), // project
+                                BigInteger.valueOf(filterId), // filter
+                                BigInteger.valueOf(page), // page, starting from 1
+                                BigInteger.valueOf(pageSize)); // # per page
+                    }
+                });
+    }
+
+    /**
+     * Retrieves a page of the issues of a project, passing each header to the <tt>consumer</tt> as it is read
+     */
+    public void getIssueHeaders(final int projectId, final int page, final int pageSize, IssueHeaderConsumer consumer,
             IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<IssueHeaderData[]>() {
+        readIssueHeaders(monitor, key("mc_project_get_issue_headers", projectId, page, pageSize), consumer,
+                new IssueHeaderRequest() {
 
-            public IssueHeaderData[] call() throws Exception {
+                    @Override
+                    void stream(IssueHeaderConsumer consumer, IProgressMonitor monitor) throws MantisException {
 
-                return getSOAP().mc_filter_get_issue_headers(getUsername(), getPassword(),
-                        BigInteger.valueOf(projectId), // project
-                        BigInteger.valueOf(filterId), // filter
-                        BigInteger.ONE, // start page
-                        BigInteger.valueOf(limit)); // # per page
+                        streamingClient.getIssueHeaders(projectId, page, pageSize, consumer, monitor);
+                    }
 
-            }
+                    @Override
+                    IssueHeaderData[] load() throws Exception {
 
-        });
+                        return getSOAP().mc_project_get_issue_headers(getUsername(), getPassword(),
+                                BigInteger.valueOf(projectId), BigInteger.valueOf(page), BigInteger.valueOf(pageSize));
+                    }
+                });
     }
 
-    public IssueHeaderData[] getIssueHeaders(final int projectId, final int limit, IProgressMonitor monitor)
-            throws MantisException {
+    /**
+     * Reads a page of issue headers like any other read, streaming it unless the repository's responses can
+     * not be parsed
+     * 
+     * <p>A streamed page is also kept whole, for the callers which share the request. Only a response which
+     * can not be parsed is read again through the SOAP stubs, after which streaming is no longer tried;
+     * faults are reported and unreachable repositories retried as for the other reads.</p>
+     */
+    private void readIssueHeaders(final IProgressMonitor monitor, List<Object> key, IssueHeaderConsumer consumer,
+            final IssueHeaderRequest request) throws MantisException {
+
+        final ResumingIssueHeaderConsumer resumingConsumer = new ResumingIssueHeaderConsumer(consumer);
 
-        return call(monitor, new Callable<IssueHeaderData[]>() {
+        IssueHeaderData[] issueHeaders = read(monitor, key, new Callable<IssueHeaderData[]>() {
 
             public IssueHeaderData[] call() throws Exception {
 
-                return getSOAP().mc_project_get_issue_headers(getUsername(), getPassword(),
-                        BigInteger.valueOf(projectId), BigInteger.ONE, BigInteger.valueOf(limit));
-            }
+                if (!settings.isStreamingSearch() || streamingUnsupported.get())
+                    return request.load();
 
+                final List<IssueHeaderData> streamed = new ArrayList<IssueHeaderData>();
+                resumingConsumer.restart();
+                try {
+                    request.stream(new IssueHeaderConsumer() {
+
+                        public void accept(IssueHeaderData header) throws MantisException {
+
+                            streamed.add(header);
+                            resumingConsumer.accept(header);
+                        }
+                    }, monitor);
+                    return streamed.toArray(new IssueHeaderData[streamed.size()]);
+                } catch (MantisLocalException e) {
+                    if (streamingUnsupported.compareAndSet(false, true))
+                        MantisCorePlugin.warn("Issue header searches for " + location.getUrl()
+                                + " can not be streamed, using the SOAP stubs from now on : " + e.getMessage());
+                    return request.load();
+                }
+            }
         });
+
+        // the headers which were streamed to this caller are skipped, the others were read by another caller
+        // or through the stubs
+        resumingConsumer.acceptRemaining(issueHeaders);
     }
 
     public int addIssue(final IssueData issue, IProgressMonitor monitor) throws MantisException {
@@ -420,7 +705,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ProjectData[] getProjectData(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ProjectData[]>() {
+        return read(monitor, key("mc_projects_get_user_accessible"), new Callable<ProjectData[]>() {
 
             public ProjectData[] call() throws Exception {
 
@@ -431,7 +716,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public FilterData[] getProjectFilters(final int projectId, IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<FilterData[]>() {
+        return read(monitor, key("mc_filter_get", projectId), new Callable<FilterData[]>() {
 
             public FilterData[] call() throws Exception {
 
@@ -444,7 +729,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     public CustomFieldDefinitionData[] getProjectCustomFields(final int projectId, IProgressMonitor monitor)
             throws MantisException {
 
-        return call(monitor, new Callable<CustomFieldDefinitionData[]>() {
+        return read(monitor, key("mc_project_get_custom_fields", projectId), new Callable<CustomFieldDefinitionData[]>() {
 
             public CustomFieldDefinitionData[] call() throws Exception {
 
@@ -458,7 +743,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public String getVersion(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<String>() {
+        return read(monitor, key("mc_version"), new Callable<String>() {
 
             public String call() throws Exception {
 
@@ -471,7 +756,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     public String getStringConfiguration(IProgressMonitor monitor, final String configurationParameter)
             throws MantisException {
 
-        return call(monitor, new Callable<String>() {
+        return read(monitor, key("mc_config_get_string", configurationParameter), new Callable<String>() {
 
             public String call() throws Exception {
 
@@ -482,7 +767,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getPriorities(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_priorities"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -495,7 +780,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getStatuses(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_status"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -508,7 +793,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getSeverities(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_severities"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -521,7 +806,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getResolutions(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_resolutions"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -534,7 +819,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getReproducibilities(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_reproducibilities"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -547,7 +832,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getProjections(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_projections"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -560,7 +845,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getEtas(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_etas"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -573,7 +858,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public ObjectRef[] getViewStates(IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<ObjectRef[]>() {
+        return read(monitor, key("mc_enum_view_states"), new Callable<ObjectRef[]>() {
 
             public ObjectRef[] call() throws Exception {
 
@@ -586,7 +871,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 
     public String[] getProjectCategories(final int value, IProgressMonitor monitor) throws MantisException {
 
-        return call(monitor, new Callable<String[]>() {
+        return read(monitor, key("mc_project_get_categories", value), new Callable<String[]>() {
 
             public String[] call() throws Exception {
 
@@ -599,7 +884,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     public AccountData[] getProjectUsers(final int projectId, final int reporterThreshold, IProgressMonitor monitor)
             throws MantisException {
 
-        return call(monitor, new Callable<AccountData[]>() {
+        return read(monitor, key("mc_project_get_users", projectId, reporterThreshold), new Callable<AccountData[]>() {
 
             public AccountData[] call() throws Exception {
 
@@ -613,7 +898,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     public ProjectVersionData[] getProjectVersions(final int projectId, IProgressMonitor monitor)
             throws MantisException {
 
-        return call(monitor, new Callable<ProjectVersionData[]>() {
+        return read(monitor, key("mc_project_get_versions", projectId), new Callable<ProjectVersionData[]>() {
 
             public ProjectVersionData[] call() throws Exception {
 
@@ -624,7 +909,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     
     public TagDataSearchResult getTags(final int pageNumber, final int perPage, IProgressMonitor monitor) throws MantisException {
         
-        return call(monitor, new Callable<TagDataSearchResult>() {
+        return read(monitor, key("mc_tag_get_all", pageNumber, perPage), new Callable<TagDataSearchResult>() {
 
             public TagDataSearchResult call() throws Exception {
 
@@ -670,7 +955,7 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
     
     public HistoryData[] getHistory(final int issueId, IProgressMonitor monitor) throws MantisException {
     	
-    	return call(monitor, new Callable<HistoryData[]>() {
+    	return read(monitor, key("mc_issue_get_history", issueId), new Callable<HistoryData[]>() {
 
 			public HistoryData[] call() throws Exception {
 				
@@ -678,4 +963,14 @@ public class MantisAxis1SoapClient extends AbstractSoapClient {
 			}
     	});
     }
-}
\ No newline at end of file
+
+    /**
+     * The two ways of reading the same page of issue headers
+     */
+    private abstract static class IssueHeaderRequest {
+
+        abstract void stream(IssueHeaderConsumer consumer, IProgressMonitor monitor) throws MantisException;
+
+        abstract IssueHeaderData[] load() throws Exception;
+    }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.soap;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.MessageContext;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.eclipse.mylyn.internal.provisional.commons.soap.SoapHttpSender;
+
+import com.itsolut.mantis.core.MantisClientSettings;
+import com.itsolut.mantis.core.TraceLocation;
+import com.itsolut.mantis.core.Tracer;
+
+/**
+ * HTTP transport which sends the calls of a repository through its pool of persistent connections
+ * 
+ * <p>{@link CustomMantisConnectLocator} deploys a sender for each {@link MantisAxis1SoapClient}, holding the
+ * pool of that client, which is sized when the client is created and shared with requests which are not sent
+ * through Axis. Proxy and HTTP authentication handling is inherited from {@link SoapHttpSender}. Idle
+ * connections are closed according to the properties which {@link CustomMantisConnectLocator} sets on each
+ * call.</p>
+ */
+@SuppressWarnings("restriction")
+public class MantisHttpSender extends SoapHttpSender {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String IDLE_TIMEOUT_MILLIS = "com.itsolut.mantis.core.http.idleTimeoutMillis";
+
+    public static final String TRACER = "com.itsolut.mantis.core.http.tracer";
+
+    public MantisHttpSender(HttpConnectionManager connectionManager) {
+
+        // the pool created by the superclass is replaced before any call is sent through it
+        if (this.connectionManager instanceof MultiThreadedHttpConnectionManager)
+            ((MultiThreadedHttpConnectionManager) this.connectionManager).shutdown();
+
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public void invoke(MessageContext msgContext) throws AxisFault {
+
+        Long idleTimeoutMillis = (Long) msgContext.getProperty(IDLE_TIMEOUT_MILLIS);
+        connectionManager.closeIdleConnections(idleTimeoutMillis != null ? idleTimeoutMillis.longValue()
+                : MantisClientSettings.DEFAULT_HTTP_IDLE_TIMEOUT_SECONDS * 1000l);
+
+        try {
+            super.invoke(msgContext);
+        } finally {
+            tracePool(msgContext);
+        }
+    }
+
+    private void tracePool(MessageContext msgContext) {
+
+        Tracer tracer = (Tracer) msgContext.getProperty(TRACER);
+        if (tracer == null || !(connectionManager instanceof MultiThreadedHttpConnectionManager))
+            return;
+
+        tracer.trace(TraceLocation.HTTP, "Connection pool for {0} holds {1} connections, at most {2} per host.",
+                msgContext.getStrProp(MessageContext.TRANS_URL),
+                ((MultiThreadedHttpConnectionManager) connectionManager).getConnectionsInPool(),
+                connectionManager.getParams().getDefaultMaxConnectionsPerHost());
+    }
+}
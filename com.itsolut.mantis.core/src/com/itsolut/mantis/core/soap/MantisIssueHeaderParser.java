@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.soap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import biz.futureware.mantis.rpc.soap.client.IssueHeaderData;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
+import com.itsolut.mantis.core.exception.MantisRemoteException;
+
+/**
+ * Reads the response of <tt>mc_project_get_issue_headers</tt> and <tt>mc_filter_get_issue_headers</tt>
+ * element by element, handing each issue header to a consumer as soon as it is complete
+ * 
+ * <p>Only the plain encoding sent by MantisConnect is understood; multi-referenced values are
+ * rejected so that the caller can fall back to the SOAP stubs.</p>
+ */
+final class MantisIssueHeaderParser {
+
+    private static final String SOAP_ENVELOPE_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
+
+    private static final Pattern DATE_TIME = Pattern
+            .compile("(-?\\d{4,})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(\\.\\d+)?(Z|[+-]\\d{2}:\\d{2})?");
+
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    static {
+        PARSER_FACTORY.setNamespaceAware(true);
+        PARSER_FACTORY.setValidating(false);
+    }
+
+    interface IssueHeaderConsumer {
+
+        void accept(IssueHeaderData header) throws MantisException;
+    }
+
+    private MantisIssueHeaderParser() {
+
+    }
+
+    /**
+     * @param in the response body, which is not closed
+     * @param consumer receives the headers in the order of the response
+     * @param monitor checked for cancellation after each header
+     * @throws MantisRemoteException if the response is a SOAP fault
+     * @throws MantisLocalException if the response can not be read
+     */
+    static void parse(InputStream in, IssueHeaderConsumer consumer, IProgressMonitor monitor) throws MantisException {
+
+        HeaderHandler handler = new HeaderHandler(consumer, monitor);
+        try {
+            PARSER_FACTORY.newSAXParser().parse(new InputSource(in), handler);
+        } catch (ConsumerException e) {
+            throw e.getFailure();
+        } catch (SAXException e) {
+            throw new MantisLocalException("The repository has returned an invalid XML response : " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new MantisRemoteException(e);
+        } catch (ParserConfigurationException e) {
+            throw new MantisLocalException(e);
+        }
+
+        if (handler.faultString != null)
+            throw new MantisRemoteException(handler.faultString);
+
+        if (!handler.sawResponse)
+            throw new MantisLocalException("The repository response does not contain issue headers.");
+    }
+
+    static Calendar parseDateTime(String value) throws SAXException {
+
+        Matcher matcher = DATE_TIME.matcher(value);
+        if (!matcher.matches())
+            throw new SAXException("Invalid dateTime value " + value);
+
+        String zone = matcher.group(8);
+        TimeZone timeZone = TimeZone.getTimeZone(zone == null || "Z".equals(zone) ? "GMT" : "GMT" + zone);
+
+        Calendar calendar = new GregorianCalendar(timeZone);
+        calendar.clear();
+        calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1,
+                Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)),
+                Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+
+        String fraction = matcher.group(7);
+        if (fraction != null)
+            calendar.set(Calendar.MILLISECOND, (int) (Double.parseDouble("0" + fraction) * 1000));
+
+        return calendar;
+    }
+
+    /**
+     * The fields of an {@link IssueHeaderData}, named after their elements
+     */
+    private enum HeaderField {
+
+        ID {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setId(integer(value));
+            }
+        },
+        VIEW_STATE {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setView_state(integer(value));
+            }
+        },
+        LAST_UPDATED {
+            @Override
+            void set(IssueHeaderData header, String value) throws SAXException {
+
+                header.setLast_updated(value.trim().length() == 0 ? null : parseDateTime(value.trim()));
+            }
+        },
+        PROJECT {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setProject(integer(value));
+            }
+        },
+        CATEGORY {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setCategory(value);
+            }
+        },
+        PRIORITY {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setPriority(integer(value));
+            }
+        },
+        SEVERITY {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setSeverity(integer(value));
+            }
+        },
+        STATUS {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setStatus(integer(value));
+            }
+        },
+        REPORTER {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setReporter(integer(value));
+            }
+        },
+        SUMMARY {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setSummary(value);
+            }
+        },
+        HANDLER {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setHandler(integer(value));
+            }
+        },
+        RESOLUTION {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setResolution(integer(value));
+            }
+        },
+        ATTACHMENTS_COUNT {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setAttachments_count(integer(value));
+            }
+        },
+        NOTES_COUNT {
+            @Override
+            void set(IssueHeaderData header, String value) {
+
+                header.setNotes_count(integer(value));
+            }
+        };
+
+        abstract void set(IssueHeaderData header, String value) throws SAXException;
+
+        static BigInteger integer(String value) {
+
+            String trimmed = value.trim();
+            return trimmed.length() == 0 ? null : new BigInteger(trimmed);
+        }
+
+        static HeaderField forElement(String localName) {
+
+            try {
+                return valueOf(localName.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                return null; // added by a later MantisConnect version
+            }
+        }
+    }
+
+    /**
+     * Carries a consumer failure through the SAX parser
+     */
+    private static class ConsumerException extends SAXException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MantisException failure;
+
+        ConsumerException(MantisException failure) {
+
+            super(failure);
+            this.failure = failure;
+        }
+
+        MantisException getFailure() {
+
+            return failure;
+        }
+    }
+
+    /**
+     * Tracks the element depth relative to the SOAP body : the response element, then the returned array,
+     * its items and their fields
+     */
+    private static class HeaderHandler extends DefaultHandler {
+
+        private final IssueHeaderConsumer consumer;
+
+        private final IProgressMonitor monitor;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private int depth;
+
+        private int bodyDepth = -1;
+
+        private boolean inFault;
+
+        private boolean sawResponse;
+
+        private String faultString;
+
+        private IssueHeaderData header;
+
+        private HeaderField field;
+
+        HeaderHandler(IssueHeaderConsumer consumer, IProgressMonitor monitor) {
+
+            this.consumer = consumer;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+
+            depth++;
+
+            if (bodyDepth == -1) {
+                if (SOAP_ENVELOPE_NS.equals(uri) && "Body".equals(localName))
+                    bodyDepth = depth;
+                return;
+            }
+
+            if (attributes.getValue("href") != null)
+                throw new SAXException("Multi-referenced values are not supported");
+
+            int level = depth - bodyDepth;
+
+            if (level == 1) {
+                inFault = SOAP_ENVELOPE_NS.equals(uri) && "Fault".equals(localName);
+                sawResponse = !inFault;
+            } else if (inFault) {
+                text.setLength(0);
+            } else if (level == 3) {
+                header = new IssueHeaderData();
+            } else if (level == 4) {
+                field = "true".equals(attributes.getValue(XSI_NS, "nil")) ? null : HeaderField.forElement(localName);
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+
+            if (inFault || field != null)
+                text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+
+            int level = depth - bodyDepth;
+            depth--;
+
+            if (bodyDepth == -1 || level <= 0)
+                return;
+
+            if (inFault) {
+                if (level == 2 && "faultstring".equals(localName))
+                    faultString = text.toString();
+                else if (level == 1)
+                    inFault = false;
+                return;
+            }
+
+            if (level == 4 && field != null) {
+                try {
+                    field.set(header, text.toString());
+                } catch (NumberFormatException e) {
+                    throw new SAXException("Invalid value " + text + " for " + localName);
+                }
+                field = null;
+            } else if (level == 3) {
+                if (header.getId() == null)
+                    throw new SAXException("Issue header without an id");
+                if (monitor.isCanceled())
+                    throw new OperationCanceledException();
+                try {
+                    consumer.accept(header);
+                } catch (MantisException e) {
+                    throw new ConsumerException(e);
+                }
+                header = null;
+            }
+        }
+    }
+}
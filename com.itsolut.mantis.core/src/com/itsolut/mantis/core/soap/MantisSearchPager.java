@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.soap;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.commons.net.Policy;
+
+import biz.futureware.mantis.rpc.soap.client.IssueHeaderData;
+
+import com.itsolut.mantis.core.IMantisTicketCollector;
+import com.itsolut.mantis.core.TraceLocation;
+import com.itsolut.mantis.core.Tracer;
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
+import com.itsolut.mantis.core.model.MantisTicket;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+
+/**
+ * Pages through the issue headers of a search, retrieving the following pages while the current one is
+ * handed to the collector
+ *
+ * <p>Each header of the current page is converted and handed to the collector as soon as it is read. At most
+ * <tt>prefetch + 1</tt> pages are requested at any time, and the pages which are still outstanding when the
+ * search ends are cancelled.</p>
+ */
+final class MantisSearchPager {
+
+    private static final long CANCELLATION_POLL_MILLIS = 100;
+
+    /**
+     * Retrieves a single page of issue headers
+     */
+    interface PageSource {
+
+        /**
+         * @param page the page number, starting from 1
+         * @param consumer receives the headers of the page in order, as they are read
+         */
+        void getIssueHeaders(int page, int pageSize, IssueHeaderConsumer consumer, IProgressMonitor monitor)
+                throws MantisException;
+    }
+
+    /**
+     * Converts a header into the ticket handed to the collector
+     */
+    interface TicketConverter {
+
+        MantisTicket convert(IssueHeaderData issueHeader) throws MantisException;
+    }
+
+    private final ExecutorService executor;
+
+    private final PageSource source;
+
+    private final TicketConverter converter;
+
+    private final int pageSize;
+
+    private final int prefetch;
+
+    private final int limit;
+
+    private final Tracer tracer;
+
+    /**
+     * @param limit the maximum number of tickets to collect, a non-positive limit is unbounded
+     */
+    MantisSearchPager(ExecutorService executor, PageSource source, TicketConverter converter, int pageSize,
+            int prefetch, int limit, Tracer tracer) {
+
+        this.executor = executor;
+        this.source = source;
+        this.converter = converter;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+        this.limit = limit;
+        this.tracer = tracer;
+    }
+
+    /**
+     * @param description describes the search in traces
+     */
+    void search(String description, IMantisTicketCollector collector, final IProgressMonitor monitor)
+            throws MantisException {
+
+        // the first page is the current one, the following ones are prefetched
+        LinkedList<Page> pages = new LinkedList<Page>();
+        try {
+            int found = 0;
+            int nextPage = 1;
+            // Mantis answers a request past the last page with the last page again, so a repeated id ends the search
+            BitSet seenIds = new BitSet();
+
+            // progress monitors are not thread-safe, so the workers only get to see the cancellation state
+            IProgressMonitor workerMonitor = new NullProgressMonitor() {
+
+                @Override
+                public boolean isCanceled() {
+
+                    return monitor.isCanceled();
+                }
+            };
+
+            for (int page = 1;; page++) {
+
+                // the first page is requested alone, since most searches fit in a single page
+                int window = page == 1 ? 0 : prefetch;
+                while (pages.size() <= window && (limit <= 0 || (nextPage - 1) * pageSize < limit))
+                    pages.add(request(nextPage++, workerMonitor));
+
+                Page current = pages.getFirst();
+                int read = 0;
+                int collected = 0;
+                boolean done = false;
+                for (IssueHeaderData issueHeader; !done && (issueHeader = current.next(monitor)) != null;) {
+                    read++;
+                    int id = issueHeader.getId().intValue();
+                    if (seenIds.get(id)) {
+                        done = true;
+                        break;
+                    }
+                    seenIds.set(id);
+                    collected++;
+                    found++;
+                    done = !collector.accept(Collections.singletonList(converter.convert(issueHeader)))
+                            || (limit > 0 && found == limit);
+                }
+
+                tracer.trace(TraceLocation.MAIN, "Search page {0} for {1} returned {2} new issues, {3} pages prefetched.",
+                        page, description, collected, pages.size() - 1);
+
+                // a page which is left before its end is still being read, and is cancelled with the prefetched ones
+                if (done || read < pageSize)
+                    break;
+
+                pages.removeFirst();
+            }
+        } finally {
+            for (Page page : pages)
+                page.cancel();
+        }
+    }
+
+    private Page request(final int pageNumber, final IProgressMonitor monitor) {
+
+        final Page page = new Page();
+        page.request = executor.submit(new Callable<Void>() {
+
+            public Void call() throws MantisException {
+
+                try {
+                    source.getIssueHeaders(pageNumber, pageSize, page, monitor);
+                    return null;
+                } finally {
+                    page.complete();
+                }
+            }
+        });
+        return page;
+    }
+
+    /**
+     * The headers of a page, in the order they were read
+     */
+    private static final class Page implements IssueHeaderConsumer {
+
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> headers = new LinkedBlockingQueue<Object>();
+
+        private Future<Void> request;
+
+        public void accept(IssueHeaderData header) {
+
+            headers.add(header);
+        }
+
+        void complete() {
+
+            headers.add(END);
+        }
+
+        void cancel() {
+
+            request.cancel(true);
+        }
+
+        /**
+         * @return the next header, or null after the last one
+         * @throws MantisException the page could not be retrieved
+         */
+        IssueHeaderData next(IProgressMonitor monitor) throws MantisException {
+
+            try {
+                while (true) {
+                    Object next = headers.poll(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        Policy.checkCanceled(monitor);
+                        continue;
+                    }
+                    if (next != END)
+                        return (IssueHeaderData) next;
+
+                    // the request has ended, but may have ended with a failure
+                    awaitRequest(monitor);
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MantisLocalException(e);
+            }
+        }
+
+        private void awaitRequest(IProgressMonitor monitor) throws MantisException, InterruptedException {
+
+            try {
+                while (true) {
+                    try {
+                        request.get(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        return;
+                    } catch (TimeoutException e) {
+                        Policy.checkCanceled(monitor);
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw MantisSoapClient.toMantisException(e.getCause());
+            }
+        }
+    }
+}
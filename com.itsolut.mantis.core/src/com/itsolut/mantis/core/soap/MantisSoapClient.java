@@ -21,11 +21,23 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.axis.encoding.Base64;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
@@ -34,10 +46,17 @@ import org.eclipse.mylyn.commons.net.Policy;
 
 import biz.futureware.mantis.rpc.soap.client.*;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.itsolut.mantis.core.*;
 import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
 import com.itsolut.mantis.core.model.*;
 import com.itsolut.mantis.core.model.MantisTicket.Key;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+import com.itsolut.mantis.core.util.BoundedCompletionService;
+import com.itsolut.mantis.core.util.SingleFlight;
 
 /**
  * The {@link MantisSoapClient} is a SOAP-based implementation of the {@link IMantisClient}
@@ -45,6 +64,23 @@ import com.itsolut.mantis.core.model.MantisTicket.Key;
  * @author Robert Munteanu
  */
 public class MantisSoapClient implements IMantisClient {
+
+    /**
+     * Shared by all clients, the per-refresh concurrency is bounded by {@link MantisClientSettings#getRefreshConcurrency()}
+     */
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("Mantis configuration refresh %d").setDaemon(true).build());
+
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("Mantis search page %d").setDaemon(true).build());
+
+    private static final int MAX_REMEMBERED_HEADERS = 10000;
+
+    /**
+     * How long a searched header decides whether a stored issue is current, enough for synchronizing the
+     * results of the search but not for reusing it in later, unrelated requests
+     */
+    private static final long HEADER_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(5);
 	
     private final MantisAxis1SoapClient soapClient;
 
@@ -52,247 +88,293 @@ public class MantisSoapClient implements IMantisClient {
     
     private final Object sync = new Object();
 
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    private final SingleFlight<RefreshScope, MantisCacheData> refreshFlight = new SingleFlight<RefreshScope, MantisCacheData>();
+
     private AbstractWebLocation location;
     
     private final NumberFormat formatter = new DecimalFormat("#.#");
 
     private final Tracer tracer;
+
+    private final MantisClientSettings settings;
+
+    private volatile IMantisIssueStore issueStore;
+
+    /**
+     * The last update times reported by the most recent searches, which decide whether a stored issue
+     * is still current
+     */
+    private final Map<Integer, SearchedHeader> searchedHeaders = Collections.synchronizedMap(new LinkedHashMap<Integer, SearchedHeader>() {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, SearchedHeader> eldest) {
+
+            return size() > MAX_REMEMBERED_HEADERS;
+        }
+    });
     
-    private final List<RunnableWithProgress> globalRefreshRunnables = new ArrayList<RunnableWithProgress>();
+    /**
+     * Global configuration units which do not depend on each other, run before all other units
+     */
+    private final ListMultimap<CacheSection, RunnableWithProgress> globalRefreshRunnables = ArrayListMultimap.create();
     {
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-			public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-				cache.cacheRepositoryVersion(soapClient.getVersion(monitor));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+			public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+				target.cacheRepositoryVersion(soapClient.getVersion(monitor));
 			}
 		});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                List<TagData> tags  = cache.getRepositoryVersion().isHasTagSupport() ? 
-                        soapClient.getAllTags(50, monitor) : Collections. <TagData> emptyList();
-                cache.cacheTags(MantisConverter.convert(tags));
-    		}
-    	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheReporterThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, REPORTER_THRESHOLD.getValue()), 
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheReporterThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, REPORTER_THRESHOLD.getValue()), 
     					DefaultConstantValues.Threshold.REPORT_BUG_THRESHOLD.getValue()));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheDeveloperThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, DEVELOPER_THRESHOLD.getValue()), 
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheDeveloperThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, DEVELOPER_THRESHOLD.getValue()), 
                 		DefaultConstantValues.Threshold.UPDATE_BUG_ASSIGN_THRESHOLD.getValue()));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheAssignedStatus(safeGetInt(soapClient.getStringConfiguration(monitor, BUG_ASSIGNED_STATUS.getValue()), 
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheAssignedStatus(safeGetInt(soapClient.getStringConfiguration(monitor, BUG_ASSIGNED_STATUS.getValue()), 
     					DefaultConstantValues.Status.ASSIGNED.getValue()));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheSubmitStatus(safeGetInt(soapClient.getStringConfiguration(monitor, BUG_SUBMIT_STATUS.getValue()), 
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheSubmitStatus(safeGetInt(soapClient.getStringConfiguration(monitor, BUG_SUBMIT_STATUS.getValue()), 
     					DefaultConstantValues.Status.NEW.getValue()));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheEnableProfiles(safeGetBoolean(monitor, ENABLE_PROFILES.getValue(), 
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheEnableProfiles(safeGetBoolean(monitor, ENABLE_PROFILES.getValue(), 
     					DefaultConstantValues.Attribute.PROFILES_ENABLED));
     		}
     	});
 
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
                 try {
-                    cache.cacheDueDateViewThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, DUE_DATE_VIEW_THRESOLD.getValue()), 
+                    target.cacheDueDateViewThreshold(safeGetInt(soapClient.getStringConfiguration(monitor, DUE_DATE_VIEW_THRESOLD.getValue()), 
                     		DefaultConstantValues.Role.NOBODY.getValue()));
                 } catch (MantisException e) {
                     MantisCorePlugin.warn("Failed retrieving configuration value: " + e.getMessage() + " . Using default value.");
-                    cache.cacheDueDateViewThreshold(DefaultConstantValues.Role.NOBODY.getValue());
+                    target.cacheDueDateViewThreshold(DefaultConstantValues.Role.NOBODY.getValue());
                 } 
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
                 try {
                     String mantisValue = soapClient.getStringConfiguration(monitor, DUE_DATE_UPDATE_THRESOLD.getValue());
-                    cache.cacheDueDateUpdateThreshold(safeGetInt(mantisValue,DefaultConstantValues.Role.NOBODY.getValue()));
+                    target.cacheDueDateUpdateThreshold(safeGetInt(mantisValue,DefaultConstantValues.Role.NOBODY.getValue()));
                 } catch (MantisException e) {
                     MantisCorePlugin.warn("Failed retrieving configuration value: " + e.getMessage() + " . Using default value.");
-                    cache.cacheDueDateUpdateThreshold(DefaultConstantValues.Role.NOBODY.getValue());
+                    target.cacheDueDateUpdateThreshold(DefaultConstantValues.Role.NOBODY.getValue());
                 } 
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
                 try {
-                    cache.cacheTimeTrackingEnabled(soapClient.getStringConfiguration(monitor, TIME_TRACKING_ENABLED.getValue()));
+                    target.cacheTimeTrackingEnabled(soapClient.getStringConfiguration(monitor, TIME_TRACKING_ENABLED.getValue()));
                 } catch (MantisException e) {
                     MantisCorePlugin.warn("Failed retrieving configuration value: " + e.getMessage() + " . Using default value.");
-                    cache.cacheTimeTrackingEnabled(Boolean.FALSE.toString());
+                    target.cacheTimeTrackingEnabled(Boolean.FALSE.toString());
                 }
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheResolvedStatus(soapClient.getStringConfiguration(monitor, RESOLVED_STATUS_THRESHOLD.getValue()));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheResolvedStatus(soapClient.getStringConfiguration(monitor, RESOLVED_STATUS_THRESHOLD.getValue()));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cachePriorities(MantisConverter.convert( soapClient.getPriorities(monitor), MantisPriority.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cachePriorities(MantisConverter.convert( soapClient.getPriorities(monitor), MantisPriority.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheStatuses(MantisConverter.convert(soapClient.getStatuses(monitor), MantisTicketStatus.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheStatuses(MantisConverter.convert(soapClient.getStatuses(monitor), MantisTicketStatus.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheSeverities(MantisConverter.convert(soapClient.getSeverities(monitor), MantisSeverity.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheSeverities(MantisConverter.convert(soapClient.getSeverities(monitor), MantisSeverity.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheResolutions(MantisConverter.convert(soapClient.getResolutions(monitor), MantisResolution.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheResolutions(MantisConverter.convert(soapClient.getResolutions(monitor), MantisResolution.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheReproducibilites(MantisConverter.convert(soapClient.getReproducibilities(monitor), MantisReproducibility.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheReproducibilites(MantisConverter.convert(soapClient.getReproducibilities(monitor), MantisReproducibility.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheProjections(MantisConverter.convert(soapClient.getProjections(monitor), MantisProjection.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheProjections(MantisConverter.convert(soapClient.getProjections(monitor), MantisProjection.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheEtas(MantisConverter.convert(soapClient.getEtas(monitor), MantisETA.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheEtas(MantisConverter.convert(soapClient.getEtas(monitor), MantisETA.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheViewStates(MantisConverter.convert(soapClient.getViewStates(monitor), MantisViewState.class));
+    	globalRefreshRunnables.put(CacheSection.GLOBAL_ENUMS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheViewStates(MantisConverter.convert(soapClient.getViewStates(monitor), MantisViewState.class));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.SEVERITY, safeGetThreshold(monitor, "default_bug_severity", DefaultConstantValues.Attribute.BUG_SEVERITY));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.SEVERITY, safeGetThreshold(monitor, "default_bug_severity", DefaultConstantValues.Attribute.BUG_SEVERITY));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.PRIORITY, safeGetThreshold(monitor, "default_bug_priority", DefaultConstantValues.Attribute.BUG_PRIORITY));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.PRIORITY, safeGetThreshold(monitor, "default_bug_priority", DefaultConstantValues.Attribute.BUG_PRIORITY));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.ETA, safeGetThreshold(monitor, "default_bug_eta", DefaultConstantValues.Attribute.BUG_ETA));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.ETA, safeGetThreshold(monitor, "default_bug_eta", DefaultConstantValues.Attribute.BUG_ETA));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheDefaultAttributeValue(Key.REPRODUCIBILITY, safeGetThreshold(monitor, "default_bug_reproducibility", DefaultConstantValues.Attribute.BUG_REPRODUCIBILITY));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheDefaultAttributeValue(Key.REPRODUCIBILITY, safeGetThreshold(monitor, "default_bug_reproducibility", DefaultConstantValues.Attribute.BUG_REPRODUCIBILITY));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.RESOLUTION, safeGetThreshold(monitor, "default_bug_resolution", DefaultConstantValues.Attribute.BUG_RESOLUTION));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.RESOLUTION, safeGetThreshold(monitor, "default_bug_resolution", DefaultConstantValues.Attribute.BUG_RESOLUTION));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.PROJECTION, safeGetThreshold(monitor, "default_bug_projection", DefaultConstantValues.Attribute.BUG_PROJECTION));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.PROJECTION, safeGetThreshold(monitor, "default_bug_projection", DefaultConstantValues.Attribute.BUG_PROJECTION));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheDefaultAttributeValue(Key.VIEW_STATE, safeGetThreshold(monitor, "default_bug_view_status", DefaultConstantValues.Attribute.BUG_VIEW_STATUS));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultAttributeValue(Key.VIEW_STATE, safeGetThreshold(monitor, "default_bug_view_status", DefaultConstantValues.Attribute.BUG_VIEW_STATUS));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.getCacheData().putDefaultValueForStringAttribute(Key.STEPS_TO_REPRODUCE, soapClient.getStringConfiguration(monitor, "default_bug_steps_to_reproduce"));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheDefaultStringAttributeValue(Key.STEPS_TO_REPRODUCE, soapClient.getStringConfiguration(monitor, "default_bug_steps_to_reproduce"));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.getCacheData().putDefaultValueForStringAttribute(Key.ADDITIONAL_INFO, soapClient.getStringConfiguration(monitor, "default_bug_additional_info"));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheDefaultStringAttributeValue(Key.ADDITIONAL_INFO, soapClient.getStringConfiguration(monitor, "default_bug_additional_info"));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.getCacheData().setBugResolutionFixedThreshold(safeGetThreshold(monitor, "bug_resolution_fixed_threshold", DefaultConstantValues.Attribute.BUG_RESOLUTION_FIXED_THRESHOLD));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheBugResolutionFixedThreshold(safeGetThreshold(monitor, "bug_resolution_fixed_threshold", DefaultConstantValues.Attribute.BUG_RESOLUTION_FIXED_THRESHOLD));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.getCacheData().setEtaEnabled(safeGetBoolean(monitor, "enable_eta", ETA_ENABLED ));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheEtaEnabled(safeGetBoolean(monitor, "enable_eta", ETA_ENABLED ));
     		}
     	});
-    	globalRefreshRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.getCacheData().setProjectionEnabled(safeGetBoolean(monitor, "enable_projection", PROJECTION_ENABLED ));
+    	globalRefreshRunnables.put(CacheSection.CONFIGURATION, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheProjectionEnabled(safeGetBoolean(monitor, "enable_projection", PROJECTION_ENABLED ));
     		}
     	});
     }
-    
-    private final List<RunnableWithProgress> projectSpecificRunnables = new ArrayList<RunnableWithProgress>();
+
+    /**
+     * Global configuration units which need the repository version
+     */
+    private final ListMultimap<CacheSection, RunnableWithProgress> dependentGlobalRefreshRunnables = ArrayListMultimap.create();
     {
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-    			cache.cacheFilters(project.getValue(), MantisConverter.convert(soapClient.getProjectFilters(project.getValue(), monitor)));
+    	dependentGlobalRefreshRunnables.put(CacheSection.TAGS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                List<TagData> tags  = target.getRepositoryVersion().isHasTagSupport() ? 
+                        soapClient.getAllTags(50, monitor) : Collections. <TagData> emptyList();
+                target.cacheTags(MantisConverter.convert(tags));
     		}
     	});
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheProjectCustomFields(project.getValue(), MantisConverter.convert(soapClient.getProjectCustomFields(project.getValue(),
-                        monitor)));
+    }
+    
+    /**
+     * Project configuration units, which need the user thresholds
+     */
+    private final ListMultimap<CacheSection, RunnableWithProgress> projectSpecificRunnables = ArrayListMultimap.create();
+    {
+    	projectSpecificRunnables.put(CacheSection.PROJECT_FILTERS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+    			target.cacheFilters(project.getValue(), MantisConverter.convert(soapClient.getProjectFilters(project.getValue(), monitor)));
     		}
     	});
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheProjectCategories(project.getValue(), soapClient.getProjectCategories(project.getValue(), monitor));
+    	projectSpecificRunnables.put(CacheSection.PROJECT_CUSTOM_FIELDS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheProjectCustomFields(project.getValue(), MantisConverter.convert(soapClient.getProjectCustomFields(project.getValue(),
+                        monitor)));
     		}
     	});
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheProjectDevelopers(project.getValue(), MantisConverter.convert(soapClient.getProjectUsers(project.getValue(),
-                        cache.getCacheData().getDeveloperThreshold(), monitor)));
+    	projectSpecificRunnables.put(CacheSection.PROJECT_CATEGORIES, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheProjectCategories(project.getValue(), soapClient.getProjectCategories(project.getValue(), monitor));
     		}
     	});
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
+    	projectSpecificRunnables.put(CacheSection.PROJECT_USERS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheProjectDevelopers(project.getValue(), MantisConverter.convert(soapClient.getProjectUsers(project.getValue(),
+                        target.getCacheData().getDeveloperThreshold(), monitor)));
+                
+                // reporters fall back to the developers just retrieved, so they are kept in the same unit
                 try {
-                    cache.cacheProjectReporters(project.getValue(), MantisConverter.convert(soapClient.getProjectUsers(project.getValue(),
-                            cache.getCacheData().getReporterThreshold(), monitor)));
+                    target.cacheProjectReporters(project.getValue(), MantisConverter.convert(soapClient.getProjectUsers(project.getValue(),
+                            target.getCacheData().getReporterThreshold(), monitor)));
                 } catch (MantisException e) {
-                    if ( cache.getCacheData().getReportersByProjectId().containsKey(project.getValue()) ) {
+                    if ( target.getCacheData().getReportersByProjectId().containsKey(project.getValue()) ) {
                         MantisCorePlugin.warn("Failed retrieving reporter information, using previously loaded values.", e);
                     } else {
-                        cache.copyReportersFromDevelopers(project.getValue());
+                        target.copyReportersFromDevelopers(project.getValue());
                         MantisCorePlugin.warn("Failed retrieving reporter information, using developers list for reporters.", e);
                     }
                 }
     		}
     	});
-    	projectSpecificRunnables.add(new RunnableWithProgress() {
-    		public void run(IProgressMonitor monitor, MantisProject project) throws MantisException {
-                cache.cacheProjectVersions(project.getValue(), MantisConverter.convert(soapClient.getProjectVersions(project.getValue(), monitor)));
+    	projectSpecificRunnables.put(CacheSection.PROJECT_VERSIONS, new RunnableWithProgress() {
+    		public void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException {
+                target.cacheProjectVersions(project.getValue(), MantisConverter.convert(soapClient.getProjectVersions(project.getValue(), monitor)));
     		}
     	});
     }
-    public MantisSoapClient(AbstractWebLocation webLocation, Tracer tracer) throws MantisException {
+    public MantisSoapClient(AbstractWebLocation webLocation, MantisClientSettings settings, Tracer tracer) throws MantisException {
 
         this.tracer = tracer;
-        soapClient = new MantisAxis1SoapClient(webLocation);
+        this.settings = settings;
+        soapClient = new MantisAxis1SoapClient(webLocation, settings, tracer);
         cache = new MantisCache();
         location = webLocation;
+        
+        if (settings.isLazyProjectConfiguration()) {
+            cache.setProjectLoader(new IMantisProjectLoader() {
+                public void loadProject(int projectId) throws MantisException {
+
+                    tracer.trace(TraceLocation.CONFIG, "Loading configuration for project with id {0} on demand", projectId);
+                    
+                    refresh0(new NullProgressMonitor(), location.getUrl(), projectId, false);
+                }
+            });
+        }
 
     }
 
@@ -309,6 +391,8 @@ public class MantisSoapClient implements IMantisClient {
 
         IssueData issueData = MantisConverter.convert(ticket, this, getUserName(), monitor);
 
+        forgetHeaders();
+
         int issueId = soapClient.addIssue(issueData, monitor);
 
         ticket.setId(issueId);
@@ -363,9 +447,23 @@ public class MantisSoapClient implements IMantisClient {
 
     public MantisTicket getTicket(int ticketId, IProgressMonitor monitor) throws MantisException {
 
+        return getTicket(ticketId, false, monitor);
+    }
+
+    public MantisTicket getSearchedTicket(int ticketId, IProgressMonitor monitor) throws MantisException {
+
+        return getTicket(ticketId, true, monitor);
+    }
+
+    private MantisTicket getTicket(int ticketId, boolean reuseStored, IProgressMonitor monitor) throws MantisException {
+
         refreshIfNeeded(monitor, location.getUrl());
 
-        IssueData issueData = soapClient.getIssueData(ticketId, monitor);
+        IssueData issueData = reuseStored ? loadStoredIssue(ticketId) : null;
+        if (issueData == null) {
+            issueData = soapClient.getIssueData(ticketId, monitor);
+            storeIssue(issueData);
+        }
 
         registerAdditionalReporters(issueData);
 
@@ -376,23 +474,58 @@ public class MantisSoapClient implements IMantisClient {
         return ticket;
     }
 
+    private IssueData loadStoredIssue(int ticketId) {
+
+        IMantisIssueStore store = issueStore;
+        SearchedHeader header = searchedHeaders.get(Integer.valueOf(ticketId));
+        if (store == null || header == null || System.currentTimeMillis() - header.searchedAt > HEADER_EXPIRY_MILLIS)
+            return null;
+
+        IssueData issueData = (IssueData) store.load(location.getUrl(), ticketId, header.lastUpdated);
+        if (issueData != null)
+            tracer.trace(TraceLocation.MAIN, "Issue {0} is unchanged since it was stored, skipping retrieval.", ticketId);
+
+        return issueData;
+    }
+
+    private void storeIssue(IssueData issueData) {
+
+        IMantisIssueStore store = issueStore;
+        if (store == null || issueData.getLast_updated() == null)
+            return;
+
+        store.save(location.getUrl(), issueData.getId().intValue(), issueData.getLast_updated().getTimeInMillis(), issueData);
+    }
+
+    /**
+     * Forgets the last update times seen in searches, since a change made through this client makes
+     * them outdated, possibly for more than the changed issue
+     */
+    private void forgetHeaders() {
+
+        searchedHeaders.clear();
+    }
+
     private void registerAdditionalReporters(IssueData issueData) {
 
         int projectId = issueData.getProject().getId().intValue();
         
-        cache.registerAdditionalReporter(projectId, MantisConverter.convert(issueData.getReporter()));
+        List<MantisUser> users = new ArrayList<MantisUser>();
+        
+        users.add(MantisConverter.convert(issueData.getReporter()));
         
         if ( issueData.getHandler() != null )
-            cache.registerAdditionalReporter(projectId, MantisConverter.convert(issueData.getHandler()));
+            users.add(MantisConverter.convert(issueData.getHandler()));
         
         if (issueData.getNotes() != null)
             for (IssueNoteData note : issueData.getNotes())
-                cache.registerAdditionalReporter(projectId, MantisConverter.convert(note.getReporter()));
+                users.add(MantisConverter.convert(note.getReporter()));
         
         if ( issueData.getMonitors() != null )
             for ( AccountData issueMonitor : issueData.getMonitors() )
-                cache.registerAdditionalReporter(projectId, MantisConverter.convert(issueMonitor));
+                users.add(MantisConverter.convert(issueMonitor));
 
+        cache.registerAdditionalReporters(projectId, users);
     }
 
     public void putAttachmentData(int id, String name, byte[] data, IProgressMonitor monitor) throws MantisException {
@@ -401,43 +534,84 @@ public class MantisSoapClient implements IMantisClient {
 
         final byte[] encoded = cache.getRepositoryVersion().hasCorrectBase64Encoding() ?  data : Base64.encode(data).getBytes();
 
+        forgetHeaders();
+
         soapClient.addIssueAttachment(id, name, encoded, monitor);
     }
     
     public void deleteAttachment(int attachmentId, IProgressMonitor progressMonitor) throws MantisException {
         
+        forgetHeaders();
+
         soapClient.deleteIssueAttachment(attachmentId, progressMonitor);
     }
 
-    public void search(MantisSearch query, List<MantisTicket> result, IProgressMonitor monitor) throws MantisException {
+    public void search(MantisSearch query, final List<MantisTicket> result, IProgressMonitor monitor) throws MantisException {
+
+        search(query, new IMantisTicketCollector() {
+
+            public boolean accept(List<MantisTicket> tickets) {
+
+                result.addAll(tickets);
+                return true;
+            }
+        }, monitor);
+    }
+
+    public void search(MantisSearch query, IMantisTicketCollector collector, IProgressMonitor monitor) throws MantisException {
 
         monitor.beginTask("", IProgressMonitor.UNKNOWN);
+        
         try {
             refreshIfNeeded(monitor, location.getUrl());
 
-            String projectName = query.getProjectName();
+            final String projectName = query.getProjectName();
             String filterName = query.getFilterName();
 
-            int projectId = cache.getProjectId(projectName);
-            int filterId = cache.getProjectFilterId(projectId, filterName);
+            final int projectId = cache.getProjectId(projectName);
+            final int filterId = cache.getProjectFilterId(projectId, filterName);
 
-            IssueHeaderData[] issueHeaders;
+            MantisSearchPager pager = new MantisSearchPager(SEARCH_EXECUTOR, new MantisSearchPager.PageSource() {
 
-            if (filterId == MantisCache.BUILT_IN_PROJECT_TASKS_FILTER_ID)
-                issueHeaders = soapClient.getIssueHeaders(projectId, query.getLimit(), monitor);
-            else
-                issueHeaders = soapClient.getIssueHeaders(projectId, filterId, query.getLimit(), monitor);
+                public void getIssueHeaders(int page, int pageSize, IssueHeaderConsumer consumer,
+                        IProgressMonitor workerMonitor) throws MantisException {
 
-            for (IssueHeaderData issueHeader : issueHeaders)
-                result.add(MantisConverter.convert(issueHeader, cache, projectName));
+                    MantisSoapClient.this.getIssueHeaders(projectId, filterId, page, pageSize, consumer, workerMonitor);
+                }
+            }, new MantisSearchPager.TicketConverter() {
+
+                public MantisTicket convert(IssueHeaderData issueHeader) throws MantisException {
+
+                    if (issueHeader.getLast_updated() != null)
+                        searchedHeaders.put(Integer.valueOf(issueHeader.getId().intValue()), new SearchedHeader(
+                                issueHeader.getLast_updated().getTimeInMillis(), System.currentTimeMillis()));
+                    return MantisConverter.convert(issueHeader, cache, projectName);
+                }
+            }, settings.getSearchPageSize(), settings.getSearchPrefetchPages(), query.getLimit(), tracer);
+
+            pager.search("project " + projectName + ", filter " + filterName, collector, monitor);
         } finally {
             monitor.done();
         }
     }
 
+    private void getIssueHeaders(int projectId, int filterId, int page, int pageSize, IssueHeaderConsumer consumer,
+            IProgressMonitor monitor) throws MantisException {
+
+        if (filterId == MantisCache.BUILT_IN_PROJECT_TASKS_FILTER_ID)
+            soapClient.getIssueHeaders(projectId, page, pageSize, consumer, monitor);
+        else
+            soapClient.getIssueHeaders(projectId, filterId, page, pageSize, consumer, monitor);
+    }
+
     public void updateAttributes(IProgressMonitor monitor) throws MantisException {
 
-        refresh(monitor, location.getUrl());
+        updateAttributes(monitor, false);
+    }
+
+    public void updateAttributes(IProgressMonitor monitor, boolean force) throws MantisException {
+
+        refresh0(monitor, location.getUrl(), MantisProject.ALL_PROJECTS.getValue(), force);
     }
     
     public void updateAttributesForTask(IProgressMonitor monitor, Integer ticketId) throws MantisException {
@@ -454,6 +628,8 @@ public class MantisSoapClient implements IMantisClient {
         IssueData issue = MantisConverter.convert(ticket, this, getUserName(), monitor);
         issue.setId(BigInteger.valueOf(ticket.getId()));
 
+        forgetHeaders();
+
         updateRelationsIfApplicable(ticket, changes, monitor);
         
         addCommentIfApplicable(issue, note);
@@ -463,6 +639,8 @@ public class MantisSoapClient implements IMantisClient {
 
     public void addIssueComment(int issueId, MantisTicketComment note, IProgressMonitor monitor) throws MantisException {
 
+        forgetHeaders();
+
         soapClient.addNote(issueId, createIssue(note), monitor);
     }
 
@@ -533,22 +711,106 @@ public class MantisSoapClient implements IMantisClient {
 
         cache.setCacheData(cacheData);
     }
+
+    public void setCacheListener(IMantisCacheListener listener) {
+
+        cache.setListener(listener);
+    }
+
+    public void setIssueStore(IMantisIssueStore issueStore) {
+
+        this.issueStore = issueStore;
+    }
     
     public void refreshIfNeeded(IProgressMonitor progressMonitor, String repositoryUrl) throws MantisException {
 
-        synchronized (sync) {
-            if (!cache.getCacheData().hasBeenRefreshed())
-                refresh(progressMonitor, repositoryUrl);
-        }
+        // published snapshots are never modified, so the common case does not need to lock
+        if (isUsable(cache.getCacheData()))
+            return;
+        
+        // joins a refresh which is already running, e.g. the background one; a refresh started right after
+        // another one completed only fetches the project list, since all sections are still fresh
+        refresh(progressMonitor, repositoryUrl);
+    }
+
+    /**
+     * @return true if the data has been refreshed and is not older than the configured maximum staleness
+     */
+    private boolean isUsable(MantisCacheData cacheData) {
+
+        if (!cacheData.hasBeenRefreshed())
+            return false;
+
+        long maxStalenessMillis = settings.getMaxConfigurationStalenessHours() * 60l * 60l * 1000l;
+
+        return maxStalenessMillis == 0 || System.currentTimeMillis() - cacheData.getLastUpdate() <= maxStalenessMillis;
+    }
+
+    public void revalidateInBackground() {
+
+        if (!revalidating.compareAndSet(false, true))
+            return;
+
+        final String repositoryUrl = location.getUrl();
+
+        REFRESH_EXECUTOR.execute(new Runnable() {
+            public void run() {
 
+                try {
+                    refresh(new NullProgressMonitor(), repositoryUrl);
+                } catch (MantisException e) {
+                    MantisCorePlugin.warn("Background refresh of the configuration for " + repositoryUrl + " failed.", e);
+                } catch (RuntimeException e) {
+                    MantisCorePlugin.warn("Background refresh of the configuration for " + repositoryUrl + " failed.", e);
+                } finally {
+                    revalidating.set(false);
+                }
+            }
+        });
     }
 
     public void refresh(IProgressMonitor monitor, String repositoryUrl) throws MantisException {
 
-        refresh0(monitor, repositoryUrl, MantisProject.ALL_PROJECTS.getValue());
+        refresh0(monitor, repositoryUrl, MantisProject.ALL_PROJECTS.getValue(), false);
     }
     
-    private void refresh0(IProgressMonitor monitor, String repositoryUrl, int projectId) throws MantisException {
+    /**
+     * Refreshes the repository configuration, or waits for a running refresh with the same scope
+     */
+    private void refresh0(final IProgressMonitor monitor, final String repositoryUrl, final int projectId, final boolean force)
+            throws MantisException {
+
+        Callable<MantisCacheData> refresh = new Callable<MantisCacheData>() {
+            public MantisCacheData call() throws MantisException {
+
+                return refreshLocked(monitor, repositoryUrl, projectId, force);
+            }
+        };
+
+        IProgressMonitor waitMonitor = Policy.monitorFor(monitor);
+        while (true) {
+            try {
+                refreshFlight.execute(new RefreshScope(projectId, force), refresh, waitMonitor);
+                return;
+            } catch (ExecutionException e) {
+                // the caller which ran the shared refresh was cancelled, this one still needs the result
+                if (e.getCause() instanceof OperationCanceledException && !waitMonitor.isCanceled())
+                    continue;
+                throw toMantisException(e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * Refreshes the repository configuration
+     * 
+     * <p>Unless <tt>force</tt> is set, only the {@link CacheSection sections} whose time-to-live has expired
+     * are fetched; the others are carried over from the current snapshot.</p>
+     * 
+     * @return the published data
+     */
+    private MantisCacheData refreshLocked(IProgressMonitor monitor, String repositoryUrl, int projectId, boolean force)
+            throws MantisException {
         
         synchronized (sync) {
 
@@ -557,39 +819,157 @@ public class MantisSoapClient implements IMantisClient {
             // set up an initial estimate of needed work
             SubMonitor subMonitor = SubMonitor.convert(monitor, "Refreshing repository configuration", 100);
             
+            // work on a copy, readers keep using the current snapshot until the refresh completes
+            MantisCache target = new MantisCache();
+            target.setCacheData(cache.getCacheData().copy());
+            
             try {
-                cache.cacheProjects(MantisConverter.convert(soapClient.getProjectData(subMonitor.newChild(10))));
+                target.cacheProjects(MantisConverter.convert(soapClient.getProjectData(subMonitor.newChild(10))));
 
-                int projectsToRefresh =  projectId == MantisProject.ALL_PROJECTS.getValue() ? cache.getCacheData().getProjects().size()  : 1 ;
-                int progressTicks = projectsToRefresh * projectSpecificRunnables.size() + globalRefreshRunnables.size();
+                MantisCacheData targetData = target.getCacheData();
+                
+                // in lazy mode only projects which were asked for at some point are kept up to date
+                List<MantisProject> projectsToRefresh = new ArrayList<MantisProject>();
+                for (MantisProject project : target.getProjects()) {
+                    if ( projectId == MantisProject.ALL_PROJECTS.getValue() ) {
+                        if ( !settings.isLazyProjectConfiguration() || targetData.isProjectLoaded(project.getValue()) )
+                            projectsToRefresh.add(project);
+                    } else if ( projectId == project.getValue() ) {
+                        projectsToRefresh.add(project);
+                    }
+                }
                 
-                tracer.trace(TraceLocation.SYNC, "Refreshing {0} projects, {1} progress ticks, passed in monitor is {2}", projectsToRefresh, progressTicks, monitor);
+                Map<CacheSection, List<Integer>> refreshedSections = new EnumMap<CacheSection, List<Integer>>(CacheSection.class);
+                
+                List<RefreshUnit> globalUnits = new ArrayList<RefreshUnit>();
+                List<RefreshUnit> dependentUnits = new ArrayList<RefreshUnit>();
+                addExpiredUnits(globalRefreshRunnables, null, targetData, force, start, globalUnits, refreshedSections);
+                addExpiredUnits(dependentGlobalRefreshRunnables, null, targetData, force, start, dependentUnits, refreshedSections);
+                for (MantisProject project : projectsToRefresh)
+                    addExpiredUnits(projectSpecificRunnables, project, targetData, force, start, dependentUnits, refreshedSections);
+                
+                int progressTicks = globalUnits.size() + dependentUnits.size();
+                
+                tracer.trace(TraceLocation.SYNC, "Refreshing {0} projects, sections {1}, {2} progress ticks, {3} concurrent requests, passed in monitor is {4}",
+                        projectsToRefresh.size(), refreshedSections.keySet(), progressTicks, settings.getRefreshConcurrency(), monitor);
                 
                 // set up the real estimate for needed work
                 subMonitor.setWorkRemaining(progressTicks);
                 
-                for ( RunnableWithProgress runnable : globalRefreshRunnables )
-					runnable.run(subMonitor.newChild(1), null);
+                runConcurrently(globalUnits, target, subMonitor);
                 
-                for (MantisProject project : cache.getProjects()) {
-                    
-                    if ( projectId != MantisProject.ALL_PROJECTS.getValue() && projectId != project.getValue() )
-                        continue;
-                    
-                    subMonitor.setTaskName("Refreshing configuration for project " + project.getName());
-                    tracer.trace(TraceLocation.SYNC, "Refreshing configuration for project {0}", project.getName());
-                    
-                    for ( RunnableWithProgress runnable : projectSpecificRunnables )
-						runnable.run(subMonitor.newChild(1), project);
-                }
+                subMonitor.setTaskName("Refreshing configuration for " + projectsToRefresh.size() + " project(s)");
+                
+                runConcurrently(dependentUnits, target, subMonitor);
 
-                cache.getCacheData().setLastUpdate( System.currentTimeMillis() );
+                for (Map.Entry<CacheSection, List<Integer>> entry : refreshedSections.entrySet())
+                    for (Integer refreshedProjectId : entry.getValue())
+                        targetData.setSectionRefreshTime(entry.getKey(), refreshedProjectId, start);
+                
+                targetData.setLastUpdate( System.currentTimeMillis() );
+                
+                cache.publishCacheData(targetData);
+                
+                return targetData;
             } finally {
                 tracer.trace(TraceLocation.CONFIG, "Repository sync for {0} complete in {1} seconds.", repositoryUrl, format(start));
             }
         }
     }
+
+    /**
+     * Adds a unit for each runnable whose section has expired, or all of them if <tt>force</tt> is set
+     * 
+     * @param project the project to refresh, or <code>null</code> for global runnables
+     */
+    private void addExpiredUnits(ListMultimap<CacheSection, RunnableWithProgress> runnables, MantisProject project,
+            MantisCacheData data, boolean force, long now, List<RefreshUnit> units, Map<CacheSection, List<Integer>> refreshedSections) {
+
+        int projectId = project != null ? project.getValue() : MantisProject.ALL_PROJECTS.getValue();
+        
+        for (CacheSection section : runnables.keySet()) {
+            
+            if (!force && !isExpired(data, section, projectId, now))
+                continue;
+            
+            for (RunnableWithProgress runnable : runnables.get(section))
+                units.add(new RefreshUnit(runnable, project));
+            
+            List<Integer> projectIds = refreshedSections.get(section);
+            if (projectIds == null) {
+                projectIds = new ArrayList<Integer>();
+                refreshedSections.put(section, projectIds);
+            }
+            projectIds.add(projectId);
+        }
+    }
+
+    private boolean isExpired(MantisCacheData data, CacheSection section, int projectId, long now) {
+
+        long refreshTime = data.getSectionRefreshTime(section, projectId);
+        long ttlMillis = settings.getSectionTtlHours(section) * 60l * 60l * 1000l;
+        
+        return refreshTime == 0 || now - refreshTime >= ttlMillis;
+    }
     
+    /**
+     * Runs the <tt>units</tt> on the shared refresh executor and waits for all of them to complete
+     * 
+     * <p>The first failure cancels the remaining units and is rethrown. Progress is reported from the calling
+     * thread only, one tick per completed unit.</p>
+     */
+    private void runConcurrently(List<RefreshUnit> units, final MantisCache target, final SubMonitor subMonitor) throws MantisException {
+
+        BoundedCompletionService<Void> completionService = new BoundedCompletionService<Void>(REFRESH_EXECUTOR,
+                settings.getRefreshConcurrency());
+        
+        // progress monitors are not thread-safe, so the workers only get to see the cancellation state
+        final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+
+                return subMonitor.isCanceled();
+            }
+        };
+        
+        for (final RefreshUnit unit : units) {
+            completionService.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+
+                    unit.runnable.run(workerMonitor, target, unit.project);
+                    return null;
+                }
+            });
+        }
+        
+        while (completionService.hasPending()) {
+            Future<Void> completed = completionService.take(subMonitor);
+            try {
+                completed.get();
+            } catch (ExecutionException e) {
+                completionService.cancelAll();
+                throw toMantisException(e.getCause());
+            } catch (InterruptedException e) {
+                completionService.cancelAll();
+                Thread.currentThread().interrupt();
+                throw new MantisLocalException(e);
+            }
+            subMonitor.worked(1);
+        }
+    }
+
+    static MantisException toMantisException(Throwable cause) {
+
+        if (cause instanceof MantisException)
+            return (MantisException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        
+        return new MantisLocalException(cause);
+    }
+
     private int safeGetThreshold(IProgressMonitor monitor, String configName, DefaultConstantValues.Attribute attribute) {
         
         try {
@@ -630,11 +1010,13 @@ public class MantisSoapClient implements IMantisClient {
 
     public void refreshForProject(IProgressMonitor monitor, String url, int projectId) throws MantisException {
         
-        refresh0(monitor, url, projectId);
+        refresh0(monitor, url, projectId, true);
     }
     
     public void deleteTicket(int ticketId, IProgressMonitor monitor) throws MantisException {
         
+        forgetHeaders();
+
         soapClient.deleteIssue(ticketId, monitor);
     }
     
@@ -656,6 +1038,64 @@ public class MantisSoapClient implements IMantisClient {
     }
     
 	private static interface RunnableWithProgress {
-    	void run(IProgressMonitor monitor, MantisProject project) throws MantisException;
+    	void run(IProgressMonitor monitor, MantisCache target, MantisProject project) throws MantisException;
+    }
+    
+    /**
+     * The last update time a search returned for an issue, trusted for {@link #HEADER_EXPIRY_MILLIS}
+     */
+    private static class SearchedHeader {
+
+        private final long lastUpdated;
+        private final long searchedAt;
+
+        public SearchedHeader(long lastUpdated, long searchedAt) {
+
+            this.lastUpdated = lastUpdated;
+            this.searchedAt = searchedAt;
+        }
+    }
+
+    /**
+     * Identifies refreshes which can be shared between callers
+     */
+    private static class RefreshScope {
+
+        private final int projectId;
+        private final boolean force;
+
+        public RefreshScope(int projectId, boolean force) {
+
+            this.projectId = projectId;
+            this.force = force;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (!(obj instanceof RefreshScope))
+                return false;
+
+            RefreshScope other = (RefreshScope) obj;
+            return projectId == other.projectId && force == other.force;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 31 * projectId + (force ? 1 : 0);
+        }
+    }
+    
+    private static class RefreshUnit {
+
+        private final RunnableWithProgress runnable;
+        private final MantisProject project;
+
+        public RefreshUnit(RunnableWithProgress runnable, MantisProject project) {
+
+            this.runnable = runnable;
+            this.project = project;
+        }
     }
 }
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.soap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.mylyn.commons.net.AbstractWebLocation;
+import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
+import org.eclipse.mylyn.commons.net.AuthenticationType;
+import org.eclipse.mylyn.commons.net.WebUtil;
+
+import com.itsolut.mantis.core.MantisClientSettings;
+import com.itsolut.mantis.core.MantisCorePlugin;
+import com.itsolut.mantis.core.TraceLocation;
+import com.itsolut.mantis.core.Tracer;
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
+import com.itsolut.mantis.core.exception.MantisRemoteException;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+
+/**
+ * Retrieves pages of issue headers without going through the Axis message tree and deserializers
+ * 
+ * <p>The request envelope is written directly and the response is read by the {@link MantisIssueHeaderParser}
+ * while it arrives, each header being handed on as soon as it is read. The requests share the connection pool
+ * of the SOAP stubs. HTTP authentication and proxies are configured from the repository location, as for all
+ * other Mylyn HTTP requests. Failures to reach the repository are reported like those of the SOAP stubs.</p>
+ */
+class MantisStreamingSearchClient {
+
+    private static final String MANTIS_CONNECT_NS = "http://futureware.biz/mantisconnect";
+
+    private static final String SOAP_ACTION_PREFIX = "http://www.mantisbt.org/bugs/api/soap/mantisconnect.php/";
+
+    private static final String CONTENT_TYPE = "text/xml; charset=utf-8";
+
+    private final AbstractWebLocation location;
+
+    private final MantisClientSettings settings;
+
+    private final Tracer tracer;
+
+    private final HttpConnectionManager connectionManager;
+
+    private final HttpClient httpClient;
+
+    MantisStreamingSearchClient(AbstractWebLocation location, HttpConnectionManager connectionManager,
+            MantisClientSettings settings, Tracer tracer) {
+
+        this.location = location;
+        this.connectionManager = connectionManager;
+        this.settings = settings;
+        this.tracer = tracer;
+        this.httpClient = new HttpClient(connectionManager);
+        WebUtil.configureHttpClient(httpClient, WebUtil.getUserAgent("Mylyn-Mantis Connector/"
+                + MantisCorePlugin.getVersionString()));
+    }
+
+    /**
+     * Equivalent of {@link MantisAxis1SoapClient#getIssueHeaders(int, int, int, int, IssueHeaderConsumer, IProgressMonitor)}
+     */
+    void getIssueHeaders(int projectId, int filterId, int page, int pageSize, IssueHeaderConsumer consumer,
+            IProgressMonitor monitor) throws MantisException {
+
+        StringBuilder parameters = new StringBuilder();
+        appendParameter(parameters, "project_id", projectId);
+        appendParameter(parameters, "filter_id", filterId);
+        appendParameter(parameters, "page_number", page);
+        appendParameter(parameters, "per_page", pageSize);
+
+        invoke("mc_filter_get_issue_headers", parameters, consumer, monitor);
+    }
+
+    /**
+     * Equivalent of {@link MantisAxis1SoapClient#getIssueHeaders(int, int, int, IssueHeaderConsumer, IProgressMonitor)}
+     */
+    void getIssueHeaders(int projectId, int page, int pageSize, IssueHeaderConsumer consumer,
+            IProgressMonitor monitor) throws MantisException {
+
+        StringBuilder parameters = new StringBuilder();
+        appendParameter(parameters, "project_id", projectId);
+        appendParameter(parameters, "page_number", page);
+        appendParameter(parameters, "per_page", pageSize);
+
+        invoke("mc_project_get_issue_headers", parameters, consumer, monitor);
+    }
+
+    private void invoke(String operation, CharSequence parameters, IssueHeaderConsumer consumer,
+            IProgressMonitor monitor) throws MantisException {
+
+        connectionManager.closeIdleConnections(settings.getHttpIdleTimeoutSeconds() * 1000l);
+
+        PostMethod post = new PostMethod(location.getUrl() + MantisAxis1SoapClient.SOAP_API_LOCATION);
+        try {
+            post.setRequestHeader("SOAPAction", '"' + SOAP_ACTION_PREFIX + operation + '"');
+            if (settings.isHttpCompression())
+                post.setRequestHeader("Accept-Encoding", "gzip");
+            post.setRequestEntity(new ByteArrayRequestEntity(createEnvelope(operation, parameters), CONTENT_TYPE));
+
+            HostConfiguration hostConfiguration = WebUtil.createHostConfiguration(httpClient, location, monitor);
+            int status = WebUtil.execute(httpClient, hostConfiguration, post, monitor);
+
+            // faults are sent along with an internal server error
+            if (status != HttpStatus.SC_OK && status != HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                // described as by the SOAP stubs, so that an unavailable repository is recognised alike
+                AxisFault fault = new AxisFault("HTTP", "(" + status + ")" + post.getStatusText(), null, null);
+                fault.addFaultDetail(Constants.QNAME_FAULTDETAIL_HTTPERRORCODE, Integer.toString(status));
+                throw new MantisRemoteException("Unexpected HTTP status " + status + " for " + operation + ".", fault);
+            }
+
+            InputStream in = WebUtil.getResponseBodyAsStream(post, monitor);
+            try {
+                if (isGzipped(post))
+                    in = new GZIPInputStream(in);
+                MantisIssueHeaderParser.parse(in, consumer, monitor);
+            } finally {
+                in.close();
+            }
+
+            tracer.trace(TraceLocation.HTTP, "Streamed the issue headers of {0}.", operation);
+        } catch (IOException e) {
+            throw new MantisRemoteException(e);
+        } finally {
+            WebUtil.releaseConnection(post, monitor);
+        }
+    }
+
+    private boolean isGzipped(PostMethod post) {
+
+        Header encoding = post.getResponseHeader("Content-Encoding");
+
+        return encoding != null && encoding.getValue().toLowerCase(Locale.ENGLISH).indexOf("gzip") != -1;
+    }
+
+    private byte[] createEnvelope(String operation, CharSequence parameters) throws MantisLocalException {
+
+        AuthenticationCredentials credentials = location.getCredentials(AuthenticationType.REPOSITORY);
+
+        StringBuilder envelope = new StringBuilder();
+        envelope.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        envelope.append("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"");
+        envelope.append(" xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"");
+        envelope.append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">");
+        envelope.append("<soapenv:Body>");
+        envelope.append("<ns1:").append(operation);
+        envelope.append(" soapenv:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"");
+        envelope.append(" xmlns:ns1=\"").append(MANTIS_CONNECT_NS).append("\">");
+        appendParameter(envelope, "username", credentials == null ? null : credentials.getUserName());
+        appendParameter(envelope, "password", credentials == null ? null : credentials.getPassword());
+        envelope.append(parameters);
+        envelope.append("</ns1:").append(operation).append('>');
+        envelope.append("</soapenv:Body>");
+        envelope.append("</soapenv:Envelope>");
+
+        try {
+            return envelope.toString().getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new MantisLocalException(e);
+        }
+    }
+
+    private static void appendParameter(StringBuilder envelope, String name, int value) {
+
+        envelope.append('<').append(name).append(" xsi:type=\"xsd:integer\">").append(value);
+        envelope.append("</").append(name).append('>');
+    }
+
+    private static void appendParameter(StringBuilder envelope, String name, String value) {
+
+        if (value == null) {
+            envelope.append('<').append(name).append(" xsi:type=\"xsd:string\" xsi:nil=\"true\"/>");
+            return;
+        }
+
+        envelope.append('<').append(name).append(" xsi:type=\"xsd:string\">");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    envelope.append("&lt;");
+                    break;
+                case '>':
+                    envelope.append("&gt;");
+                    break;
+                case '&':
+                    envelope.append("&amp;");
+                    break;
+                case '"':
+                    envelope.append("&quot;");
+                    break;
+                default:
+                    envelope.append(c);
+            }
+        }
+        envelope.append("</").append(name).append('>');
+    }
+}
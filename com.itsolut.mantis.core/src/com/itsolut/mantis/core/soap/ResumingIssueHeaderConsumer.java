@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.soap;
+
+import biz.futureware.mantis.rpc.soap.client.IssueHeaderData;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+
+/**
+ * Passes on the headers of repeated attempts to read the same page, skipping those which an earlier attempt
+ * has already passed on
+ *
+ * <p>Mantis returns the headers of a page in the same order on each request, so an attempt which is restarted
+ * after a failure part way through the page resumes after the last header passed on.</p>
+ */
+final class ResumingIssueHeaderConsumer implements IssueHeaderConsumer {
+
+    private final IssueHeaderConsumer consumer;
+
+    private int passedOn;
+
+    private int read;
+
+    ResumingIssueHeaderConsumer(IssueHeaderConsumer consumer) {
+
+        this.consumer = consumer;
+    }
+
+    /**
+     * Starts a new attempt, from the first header of the page
+     */
+    synchronized void restart() {
+
+        read = 0;
+    }
+
+    public synchronized void accept(IssueHeaderData header) throws MantisException {
+
+        if (read++ < passedOn)
+            return;
+
+        consumer.accept(header);
+        passedOn++;
+    }
+
+    /**
+     * Passes on the headers of a complete page which were not passed on yet
+     */
+    synchronized void acceptRemaining(IssueHeaderData[] headers) throws MantisException {
+
+        restart();
+        for (IssueHeaderData header : headers)
+            accept(header);
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.util;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs independent units of work on a shared {@link Executor}, keeping at most a fixed number of
+ * them in flight, and hands back the finished units in completion order.
+ * 
+ * <p>Instances are not thread-safe. They are meant to be driven by a single coordinating thread,
+ * which is also the one reporting progress and observing cancellation.</p>
+ * 
+ * @param <T> the result type of the units of work
+ */
+public class BoundedCompletionService<T> {
+
+    private static final long CANCELLATION_POLL_MILLIS = 100;
+
+    private final CompletionService<T> completionService;
+    private final int maxConcurrency;
+    private final LinkedList<Callable<T>> waiting = new LinkedList<Callable<T>>();
+    private final List<Future<T>> running = new ArrayList<Future<T>>();
+
+    public BoundedCompletionService(Executor executor, int maxConcurrency) {
+
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive, was " + maxConcurrency);
+
+        this.completionService = new ExecutorCompletionService<T>(executor);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Schedules a unit of work, which is started right away if the concurrency limit allows it
+     * 
+     * @param task the unit of work
+     */
+    public void submit(Callable<T> task) {
+
+        waiting.add(task);
+        startWaiting();
+    }
+
+    /**
+     * @return true if there are units of work which have not yet been returned by {@link #take(IProgressMonitor)}
+     */
+    public boolean hasPending() {
+
+        return !running.isEmpty() || !waiting.isEmpty();
+    }
+
+    /**
+     * Waits for the next unit of work to complete
+     * 
+     * <p>If the <tt>monitor</tt> is cancelled or the calling thread is interrupted while waiting all
+     * outstanding work is cancelled and an {@link OperationCanceledException} is thrown.</p>
+     * 
+     * @param monitor the monitor used to check for cancellation
+     * @return the completed unit of work, never <code>null</code>
+     * @throws IllegalStateException if there is no pending work
+     */
+    public Future<T> take(IProgressMonitor monitor) {
+
+        if (!hasPending())
+            throw new IllegalStateException("No pending work");
+
+        try {
+            while (true) {
+
+                if (monitor.isCanceled()) {
+                    cancelAll();
+                    throw new OperationCanceledException();
+                }
+
+                Future<T> completed = completionService.poll(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (completed != null) {
+                    running.remove(completed);
+                    startWaiting();
+                    return completed;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new OperationCanceledException();
+        }
+    }
+
+    /**
+     * Cancels all running and waiting units of work
+     */
+    public void cancelAll() {
+
+        waiting.clear();
+
+        for (Future<T> future : running)
+            future.cancel(true);
+
+        running.clear();
+    }
+
+    private void startWaiting() {
+
+        while (running.size() < maxConcurrency && !waiting.isEmpty())
+            running.add(completionService.submit(waiting.removeFirst()));
+    }
+}
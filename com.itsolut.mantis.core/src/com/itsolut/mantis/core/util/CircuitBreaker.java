@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Stops requests to a failing service until it has had time to recover
+ * 
+ * <p>The breaker starts {@link State#CLOSED closed}, letting all requests through. After a number of
+ * consecutive failures it {@link State#OPEN opens} and rejects all requests. Once the open duration has
+ * passed it is {@link State#HALF_OPEN half-open} : a single probe request is let through, which closes the
+ * breaker if it succeeds and opens it again if it fails. A probe which reports neither outcome is replaced by
+ * a new one after another open duration.</p>
+ * 
+ * <p>Instances are thread-safe.</p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final Ticker ticker;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    private long probeStartedAt;
+
+    private boolean probing;
+
+    /**
+     * @param failureThreshold the number of consecutive failures which open the breaker
+     * @param openDuration the time during which requests are rejected once the breaker opens
+     * @param unit the unit of the <tt>openDuration</tt>
+     * @param ticker the time source
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, Ticker ticker) {
+
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = unit.toNanos(openDuration);
+        this.ticker = ticker;
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+
+        this(failureThreshold, openDuration, unit, Ticker.systemTicker());
+    }
+
+    /**
+     * @return true if the request may proceed, in which case its outcome should be reported through
+     *         {@link #recordSuccess()} or {@link #recordFailure()}
+     */
+    public boolean allowRequest() {
+
+        State previous;
+        synchronized (this) {
+            long now = ticker.read();
+            previous = state;
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (now - openedAt < openNanos)
+                        return false;
+                    state = State.HALF_OPEN;
+                    break;
+                case HALF_OPEN:
+                    if (probing && now - probeStartedAt < openNanos)
+                        return false;
+                    break;
+            }
+            probing = true;
+            probeStartedAt = now;
+        }
+
+        if (previous != State.HALF_OPEN)
+            stateChanged(previous, State.HALF_OPEN);
+        return true;
+    }
+
+    public void recordSuccess() {
+
+        State previous;
+        synchronized (this) {
+            previous = state;
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            probing = false;
+        }
+
+        if (previous != State.CLOSED)
+            stateChanged(previous, State.CLOSED);
+    }
+
+    public void recordFailure() {
+
+        State previous;
+        synchronized (this) {
+            previous = state;
+            consecutiveFailures++;
+            if (state == State.OPEN || (state == State.CLOSED && consecutiveFailures < failureThreshold))
+                return;
+            state = State.OPEN;
+            openedAt = ticker.read();
+            probing = false;
+        }
+
+        stateChanged(previous, State.OPEN);
+    }
+
+    public synchronized State getState() {
+
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+
+        return consecutiveFailures;
+    }
+
+    /**
+     * Invoked outside the lock after each transition, does nothing by default
+     */
+    protected void stateChanged(State previous, State current) {
+
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.util;
+
+/**
+ * A hash map from primitive <tt>int</tt> keys to non-null values, which looks up keys without boxing them
+ * 
+ * <p>Collisions are resolved by linear probing in a table which is kept at most half full. Entries can not be
+ * removed.</p>
+ * 
+ * <p>Instances are not thread-safe, but may be shared between threads once they are no longer modified.</p>
+ * 
+ * @param <V> the value type
+ */
+public class IntHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public IntHashMap() {
+
+        this(0);
+    }
+
+    /**
+     * @param expectedSize the number of entries which can be added before the table grows
+     */
+    public IntHashMap(int expectedSize) {
+
+        allocate(capacityFor(expectedSize));
+    }
+
+    public IntHashMap(IntHashMap<? extends V> other) {
+
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    /**
+     * @return the value for the <tt>key</tt>, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+
+        return (V) values[indexOf(key)];
+    }
+
+    public boolean containsKey(int key) {
+
+        return values[indexOf(key)] != null;
+    }
+
+    /**
+     * @return the previous value for the <tt>key</tt>, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not supported.");
+
+        int index = indexOf(key);
+        V previous = (V) values[index];
+        keys[index] = key;
+        values[index] = value;
+        if (previous == null && ++size * 2 > values.length)
+            grow();
+
+        return previous;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * @return the slot holding the <tt>key</tt>, or the empty slot where it belongs
+     */
+    private int indexOf(int key) {
+
+        int mask = values.length - 1;
+        int index = hash(key) & mask;
+        while (values[index] != null && keys[index] != key)
+            index = (index + 1) & mask;
+
+        return index;
+    }
+
+    private void grow() {
+
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+
+        for (int i = 0; i < oldValues.length; i++)
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+    }
+
+    private void allocate(int capacity) {
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    private static int capacityFor(int expectedSize) {
+
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 + 1)
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    /**
+     * Spreads the bits of the key, since ids are often sequential or multiples of ten
+     */
+    private static int hash(int key) {
+
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null) {
+                if (builder.length() > 1)
+                    builder.append(", ");
+                builder.append(keys[i]).append('=').append(values[i]);
+            }
+
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.core.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Collapses concurrent executions of the same unit of work into a single one
+ * 
+ * <p>The first caller for a key runs the work on its own thread. Callers which arrive with the same key
+ * while the work is running wait for it to complete and receive the same result or failure. Once the work
+ * completes the key is released, so that the next caller starts a new execution.</p>
+ * 
+ * <p>Instances are thread-safe.</p>
+ * 
+ * @param <K> the key type, which must implement {@link Object#equals(Object)} and {@link Object#hashCode()}
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private static final long CANCELLATION_POLL_MILLIS = 100;
+
+    private final Map<K, FutureTask<V>> inFlight = new HashMap<K, FutureTask<V>>();
+
+    /**
+     * Runs the <tt>work</tt>, or joins a running execution for the same <tt>key</tt>
+     * 
+     * <p>A caller which joins an execution stops waiting with an {@link OperationCanceledException} when its
+     * <tt>monitor</tt> is cancelled or its thread is interrupted; the execution itself continues for the
+     * benefit of the other callers.</p>
+     * 
+     * @param key the key identifying the work
+     * @param work the work, only invoked if no execution is running for the key
+     * @param monitor the monitor used to check for cancellation while waiting
+     * @return the result of the execution
+     * @throws ExecutionException the execution failed, the cause holds the original exception
+     */
+    public V execute(K key, Callable<V> work, IProgressMonitor monitor) throws ExecutionException {
+
+        FutureTask<V> task;
+        boolean owner = false;
+
+        synchronized (inFlight) {
+            task = inFlight.get(key);
+            if (task == null) {
+                task = new FutureTask<V>(work);
+                inFlight.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (inFlight) {
+                    inFlight.remove(key);
+                }
+            }
+        }
+
+        return await(task, monitor);
+    }
+
+    private V await(FutureTask<V> task, IProgressMonitor monitor) throws ExecutionException {
+
+        try {
+            while (true) {
+
+                try {
+                    return task.get(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (monitor.isCanceled())
+                        throw new OperationCanceledException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        }
+    }
+}
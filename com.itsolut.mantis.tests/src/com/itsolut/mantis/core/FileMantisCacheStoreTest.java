@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.*;
+import com.itsolut.mantis.core.model.MantisTicket.Key;
+
+public class FileMantisCacheStoreTest {
+
+	private static final String REPOSITORY_URL = "http://localhost";
+	
+	private static final String OTHER_REPOSITORY_URL = "http://localhost/other";
+	
+	@Rule
+	public TemporaryFolder scratchDir = new TemporaryFolder();
+	
+	private FileMantisCacheStore newStore() {
+		
+		return new FileMantisCacheStore(new File(scratchDir.getRoot(), "repositoryConfigurations"));
+	}
+	
+	@Test
+	public void saveAndLoad() throws MantisException {
+		
+		newStore().save(REPOSITORY_URL, createCacheData());
+		
+		MantisCacheData cacheData = newStore().load(REPOSITORY_URL);
+		assertNotNull(cacheData);
+		
+		MantisCache cache = new MantisCache();
+		cache.setCacheData(cacheData);
+		
+		assertEquals(1234l, cacheData.getLastUpdate());
+		assertEquals(RepositoryVersion.VERSION_1_2_OR_HIGHER, cache.getRepositoryVersion());
+		assertEquals(Integer.valueOf(0), cache.getProjectById(2).getParentProjectId());
+		assertEquals(2, cache.getProjectFilters(2).size());
+		assertEquals("http://localhost/filter", cache.getProjectFilters(2).get(1).getUrl());
+		assertEquals(MantisCustomFieldType.ENUM, cache.getCustomFieldByProjectIdAndFieldName(2, "Field").getType());
+		assertEquals(2, cache.getCustomFieldByProjectIdAndFieldName(2, "Field").getPossibleValues().length);
+		assertEquals("Real name", cache.getUserByUsername("developer").getName());
+		assertEquals("developer", cache.getUserNameById(5));
+		assertEquals(1, cache.getVersionsByProjectName("Child").length);
+		assertEquals(new Date(5000), cache.getVersionsByProjectName("Child")[0].getTime());
+		assertEquals("resolved", cache.getResolvedStatusName());
+		assertEquals("high", cache.getDefaultPriority().getName());
+		assertEquals("steps", cache.getDefaultStepsToReproduce());
+		assertEquals(1, cache.getTags().size());
+		assertTrue(cacheData.timeTrackingEnabled);
+		assertTrue(cache.isEnableProfiles());
+	}
+	
+	@Test
+	public void loadMissing() {
+		
+		newStore().save(REPOSITORY_URL, createCacheData());
+		
+		assertNull(newStore().load(OTHER_REPOSITORY_URL));
+	}
+	
+	@Test
+	public void remove() {
+		
+		FileMantisCacheStore store = newStore();
+		store.save(REPOSITORY_URL, createCacheData());
+		store.save(OTHER_REPOSITORY_URL, createCacheData());
+		store.remove(REPOSITORY_URL);
+		
+		assertNull(newStore().load(REPOSITORY_URL));
+		assertNotNull(newStore().load(OTHER_REPOSITORY_URL));
+	}
+	
+	@Test
+	public void corruptFileIsDiscarded() throws IOException {
+		
+		FileMantisCacheStore store = newStore();
+		store.save(REPOSITORY_URL, createCacheData());
+		
+		File cacheFile = store.getCacheFile(REPOSITORY_URL);
+		FileOutputStream out = new FileOutputStream(cacheFile);
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+		
+		assertNull(newStore().load(REPOSITORY_URL));
+		assertFalse(cacheFile.exists());
+	}
+	
+	@Test
+	public void legacyStateIsMigrated() throws IOException {
+		
+		File legacyStateFile = new File(scratchDir.getRoot(), "repositoryConfigurations");
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacyStateFile));
+		out.writeInt(1);
+		out.writeObject(REPOSITORY_URL);
+		out.writeObject(createCacheData());
+		out.close();
+		
+		MantisCacheData cacheData = newStore().load(REPOSITORY_URL);
+		
+		assertNotNull(cacheData);
+		assertEquals(1234l, cacheData.getLastUpdate());
+		assertFalse(legacyStateFile.exists());
+		assertNotNull(newStore().load(REPOSITORY_URL));
+	}
+
+	private MantisCacheData createCacheData() {
+		
+		MantisCache cache = new MantisCache();
+		try {
+			cache.cacheRepositoryVersion("1.2.0");
+			cache.cacheProjects(Arrays.asList(new MantisProject("Parent", 1), new MantisProject("Child", 2, 0)));
+			cache.cacheFilters(2, Arrays.asList(new MantisProjectFilter("Filter", 7, "http://localhost/filter", 2)));
+		} catch (MantisException e) {
+			throw new IllegalStateException(e);
+		}
+		
+		MantisCustomField customField = new MantisCustomField();
+		customField.setId(3);
+		customField.setName("Field");
+		customField.setType(MantisCustomFieldType.ENUM);
+		customField.setPossibleValues(new String[] { "a", "b" });
+		cache.cacheProjectCustomFields(2, Arrays.asList(customField));
+		
+		cache.cacheProjectDevelopers(2, Arrays.asList(new MantisUser(5, "developer", "Real name", null)));
+		cache.copyReportersFromDevelopers(2);
+		
+		MantisVersion version = new MantisVersion("1.0");
+		version.setTime(new Date(5000));
+		version.setReleased(true);
+		cache.cacheProjectVersions(2, Arrays.asList(version));
+		cache.cacheProjectCategories(2, new String[] { "General" });
+		
+		cache.cacheStatuses(Arrays.asList(new MantisTicketStatus("new", 10), new MantisTicketStatus("resolved", 80)));
+		cache.cacheResolvedStatus("80");
+		cache.cachePriorities(Arrays.asList(new MantisPriority("high", 40)));
+		cache.cacheDefaultAttributeValue(Key.PRIORITY, 40);
+		cache.cacheDefaultStringAttributeValue(Key.STEPS_TO_REPRODUCE, "steps");
+		cache.cacheTags(Arrays.asList(new MantisTag("tag", 1)));
+		cache.cacheTimeTrackingEnabled("1");
+		cache.cacheEnableProfiles(true);
+		cache.getCacheData().setLastUpdate(1234);
+		
+		return cache.getCacheData();
+	}
+}
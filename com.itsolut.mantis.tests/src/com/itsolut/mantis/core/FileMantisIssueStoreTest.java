@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileMantisIssueStoreTest {
+
+	private static final String REPOSITORY_URL = "http://localhost";
+
+	private static final String OTHER_REPOSITORY_URL = "http://localhost/other";
+
+	@Rule
+	public TemporaryFolder scratchDir = new TemporaryFolder();
+
+	private FileMantisIssueStore newStore(long maxSizeBytes) {
+
+		return new FileMantisIssueStore(new File(scratchDir.getRoot(), "issueStore"), maxSizeBytes);
+	}
+
+	@Test
+	public void issueIsOnlyServedForItsLastUpdate() {
+
+		newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES).save(REPOSITORY_URL, 1, 1000l, "issue");
+
+		FileMantisIssueStore store = newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES);
+		assertEquals("issue", store.load(REPOSITORY_URL, 1, 1000l));
+		assertNull(store.load(REPOSITORY_URL, 1, 2000l));
+		assertNull(store.load(REPOSITORY_URL, 2, 1000l));
+		assertNull(store.load(OTHER_REPOSITORY_URL, 1, 1000l));
+	}
+
+	@Test
+	public void leastRecentlyUsedIssueIsEvicted() {
+
+		FileMantisIssueStore store = newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES);
+		store.save(REPOSITORY_URL, 1, 1000l, "first");
+		long issueSize = store.getTotalSize();
+
+		store = newStore(issueSize * 2);
+		store.save(REPOSITORY_URL, 2, 1000l, "other");
+		assertNotNull(store.load(REPOSITORY_URL, 1, 1000l));
+		store.save(REPOSITORY_URL, 3, 1000l, "third");
+
+		assertNotNull(store.load(REPOSITORY_URL, 1, 1000l));
+		assertNull(store.load(REPOSITORY_URL, 2, 1000l));
+		assertNotNull(store.load(REPOSITORY_URL, 3, 1000l));
+		assertEquals(issueSize * 2, store.getTotalSize());
+	}
+
+	@Test
+	public void removeOnlyAffectsTheRepository() {
+
+		FileMantisIssueStore store = newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES);
+		store.save(REPOSITORY_URL, 1, 1000l, "issue");
+		store.save(OTHER_REPOSITORY_URL, 1, 1000l, "issue");
+
+		store.remove(REPOSITORY_URL);
+
+		assertNull(newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES).load(REPOSITORY_URL, 1, 1000l));
+		assertEquals("issue", newStore(FileMantisIssueStore.DEFAULT_MAX_SIZE_BYTES).load(OTHER_REPOSITORY_URL, 1, 1000l));
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MantisCacheCheckpointerTest {
+
+	private static final String REPOSITORY_URL = "http://localhost";
+
+	private static final long DEBOUNCE_MILLIS = 100;
+
+	private final RecordingCacheStore store = new RecordingCacheStore();
+
+	private final MantisCacheCheckpointer checkpointer = new MantisCacheCheckpointer(store, DEBOUNCE_MILLIS, new NoOpTracer());
+
+	@After
+	public void shutdown() {
+
+		checkpointer.shutdown();
+	}
+
+	@Test
+	public void burstOfChangesIsWrittenOnce() throws InterruptedException {
+
+		MantisCacheData first = newDirtyData();
+		MantisCacheData second = newDirtyData();
+
+		checkpointer.schedule(REPOSITORY_URL, first);
+		checkpointer.schedule(REPOSITORY_URL, second);
+
+		Thread.sleep(DEBOUNCE_MILLIS * 5);
+
+		assertEquals(1, store.saved.size());
+		assertSame(second, store.saved.get(0));
+		assertFalse(second.isDirty());
+	}
+
+	@Test
+	public void cancelledCheckpointIsNotWritten() throws InterruptedException {
+
+		MantisCacheData data = newDirtyData();
+
+		checkpointer.schedule(REPOSITORY_URL, data);
+		checkpointer.cancel(REPOSITORY_URL);
+
+		Thread.sleep(DEBOUNCE_MILLIS * 5);
+
+		assertEquals(0, store.saved.size());
+		assertTrue(data.isDirty());
+	}
+
+	private MantisCacheData newDirtyData() {
+
+		MantisCacheData data = new MantisCacheData();
+		data.markDirty();
+		return data;
+	}
+
+	private static class RecordingCacheStore implements IMantisCacheStore {
+
+		private final List<MantisCacheData> saved = new ArrayList<MantisCacheData>();
+
+		public MantisCacheData load(String repositoryUrl) {
+
+			return null;
+		}
+
+		public synchronized boolean save(String repositoryUrl, MantisCacheData cacheData) {
+
+			saved.add(cacheData);
+			return true;
+		}
+
+		public void remove(String repositoryUrl) {
+
+		}
+	}
+}
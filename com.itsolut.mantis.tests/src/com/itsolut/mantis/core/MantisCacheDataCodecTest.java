@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.MantisPriority;
+import com.itsolut.mantis.core.model.MantisProject;
+
+public class MantisCacheDataCodecTest {
+
+	private static final int PRIORITIES_TAG = 11;
+	
+	private static final int UNKNOWN_TAG = 1000;
+	
+	@Test
+	public void unknownSectionsAreSkipped() throws IOException, MantisException {
+		
+		byte[] encoded = rewrite(encode(createCacheData()), -1, true);
+		
+		MantisCache cache = new MantisCache();
+		cache.setCacheData(decode(encoded));
+		
+		assertTrue(cache.getCacheData().hasBeenRefreshed());
+		assertEquals(2, cache.getProjects().size());
+		assertEquals("high", cache.getPriorities()[0].getName());
+	}
+	
+	@Test
+	public void missingSectionsAreExpired() throws IOException, MantisException {
+		
+		byte[] encoded = rewrite(encode(createCacheData()), PRIORITIES_TAG, false);
+		
+		MantisCache cache = new MantisCache();
+		cache.setCacheData(decode(encoded));
+		
+		assertFalse(cache.getCacheData().hasBeenRefreshed());
+		assertEquals(2, cache.getProjects().size());
+		assertNull(cache.getCacheData().priorities);
+		assertEquals(0, cache.getCacheData().getSectionRefreshTime(CacheSection.GLOBAL_ENUMS, 0));
+		assertEquals(1234, cache.getCacheData().getSectionRefreshTime(CacheSection.CONFIGURATION, 0));
+		assertEquals(1234, cache.getCacheData().getSectionRefreshTime(CacheSection.PROJECT_VERSIONS, 2));
+	}
+	
+	private MantisCacheData createCacheData() throws MantisException {
+		
+		MantisCache cache = new MantisCache();
+		cache.cacheProjects(Arrays.asList(new MantisProject("Parent", 1), new MantisProject("Child", 2, 0)));
+		cache.cachePriorities(Arrays.asList(new MantisPriority("high", 40)));
+		cache.getCacheData().setLastUpdate(1234);
+		cache.getCacheData().setSectionRefreshTime(CacheSection.GLOBAL_ENUMS, 0, 1234);
+		cache.getCacheData().setSectionRefreshTime(CacheSection.CONFIGURATION, 0, 1234);
+		cache.getCacheData().setSectionRefreshTime(CacheSection.PROJECT_VERSIONS, 2, 1234);
+		return cache.getCacheData();
+	}
+	
+	private byte[] encode(MantisCacheData data) throws IOException {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		MantisCacheDataCodec.write(data, out);
+		out.close();
+		return bytes.toByteArray();
+	}
+	
+	private MantisCacheData decode(byte[] encoded) throws IOException {
+		
+		return MantisCacheDataCodec.read(new DataInputStream(new ByteArrayInputStream(encoded)),
+				MantisCacheDataCodec.FORMAT_VERSION);
+	}
+	
+	/**
+	 * Copies the encoded sections, leaving out the one with the <tt>droppedTag</tt> and optionally
+	 * adding a section which only a newer version would know about
+	 */
+	private byte[] rewrite(byte[] encoded, int droppedTag, boolean addUnknownSection) throws IOException {
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		
+		if (addUnknownSection) {
+			out.writeInt(UNKNOWN_TAG);
+			out.writeInt(3);
+			out.write(new byte[] { 1, 2, 3 });
+		}
+		
+		int tag;
+		while ((tag = in.readInt()) != 0) {
+			byte[] section = new byte[in.readInt()];
+			in.readFully(section);
+			if (tag == droppedTag)
+				continue;
+			out.writeInt(tag);
+			out.writeInt(section.length);
+			out.write(section);
+		}
+		out.writeInt(0);
+		out.close();
+		
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.MantisCustomField;
+import com.itsolut.mantis.core.model.MantisProject;
+import com.itsolut.mantis.core.model.MantisTicketStatus;
+import com.itsolut.mantis.core.model.MantisUser;
+
+/**
+ * Measures {@link MantisCache} lookups against a large synthetic configuration
+ * 
+ * <p>Not a unit test, run it as a Java application. Its name does not match the test class patterns, so the
+ * build neither runs it nor prints its timings. The baseline performs the same lookups as a linear scan over
+ * the cached lists, which is what the cache did before it was indexed.</p>
+ */
+public class MantisCacheLookupBenchmark {
+
+	private static final int PROJECTS = 500;
+	private static final int CUSTOM_FIELDS_PER_PROJECT = 20;
+	private static final int USERS = 20000;
+	private static final int STATUSES = 20;
+	private static final int ISSUES = 5000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws MantisException {
+
+		MantisCache cache = createCache();
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long scanned = time(new LinearScanLookups(cache.getCacheData()));
+			long indexed = time(new IndexedLookups(cache));
+			System.out.println(String.format("Round %d: linear scan %d ms, indexed %d ms", round + 1, scanned / 1000000,
+					indexed / 1000000));
+		}
+	}
+
+	private static MantisCache createCache() throws MantisException {
+
+		MantisCache cache = new MantisCache();
+
+		List<MantisProject> projects = new ArrayList<MantisProject>();
+		for (int i = 1; i <= PROJECTS; i++)
+			projects.add(new MantisProject("Project " + i, i));
+		cache.cacheProjects(projects);
+
+		List<MantisTicketStatus> statuses = new ArrayList<MantisTicketStatus>();
+		for (int i = 1; i <= STATUSES; i++)
+			statuses.add(new MantisTicketStatus("status " + i, i * 10));
+		cache.cacheStatuses(statuses);
+
+		for (int i = 1; i <= PROJECTS; i++) {
+			List<MantisCustomField> customFields = new ArrayList<MantisCustomField>();
+			for (int j = 1; j <= CUSTOM_FIELDS_PER_PROJECT; j++) {
+				MantisCustomField customField = new MantisCustomField();
+				customField.setId(j);
+				customField.setName("Field " + j);
+				customFields.add(customField);
+			}
+			cache.cacheProjectCustomFields(i, customFields);
+		}
+
+		List<MantisUser> users = new ArrayList<MantisUser>();
+		for (int i = 1; i <= USERS; i++)
+			users.add(new MantisUser(i, "user" + i, null, null));
+		cache.cacheProjectDevelopers(1, users);
+
+		return cache;
+	}
+
+	private static long time(Lookups lookups) throws MantisException {
+
+		long start = System.nanoTime();
+		int checksum = 0;
+
+		// roughly what converting a page of issue headers and building their task data looks up
+		for (int issue = 0; issue < ISSUES; issue++) {
+			int projectId = issue % PROJECTS + 1;
+			checksum += lookups.projectId("Project " + projectId);
+			checksum += lookups.status((issue % STATUSES + 1) * 10).getValue();
+			checksum += lookups.customField(projectId, "Field " + (issue % CUSTOM_FIELDS_PER_PROJECT + 1)).getId();
+			checksum += lookups.userName(issue % USERS + 1).length();
+		}
+
+		if (checksum == 0)
+			throw new IllegalStateException("Lookups returned no data");
+
+		return System.nanoTime() - start;
+	}
+
+	private interface Lookups {
+
+		int projectId(String projectName) throws MantisException;
+
+		MantisTicketStatus status(int statusId) throws MantisException;
+
+		MantisCustomField customField(int projectId, String name) throws MantisException;
+
+		String userName(int userId);
+	}
+
+	private static class IndexedLookups implements Lookups {
+
+		private final MantisCache cache;
+
+		public IndexedLookups(MantisCache cache) {
+
+			this.cache = cache;
+		}
+
+		public int projectId(String projectName) throws MantisException {
+
+			return cache.getProjectId(projectName);
+		}
+
+		public MantisTicketStatus status(int statusId) throws MantisException {
+
+			return cache.getStatus(statusId);
+		}
+
+		public MantisCustomField customField(int projectId, String name) throws MantisException {
+
+			return cache.getCustomFieldByProjectIdAndFieldName(projectId, name);
+		}
+
+		public String userName(int userId) {
+
+			return cache.getUserNameById(userId);
+		}
+	}
+
+	private static class LinearScanLookups implements Lookups {
+
+		private final MantisCacheData data;
+
+		public LinearScanLookups(MantisCacheData data) {
+
+			this.data = data;
+		}
+
+		public int projectId(String projectName) throws MantisException {
+
+			for (MantisProject project : data.getProjects())
+				if (project.getName().equals(projectName))
+					return project.getValue();
+
+			throw new MantisException("No project with the name " + projectName + " .");
+		}
+
+		public MantisTicketStatus status(int statusId) throws MantisException {
+
+			for (MantisTicketStatus status : data.statuses)
+				if (status.getValue() == statusId)
+					return status;
+
+			throw new MantisException("No status with id " + statusId + " .");
+		}
+
+		public MantisCustomField customField(int projectId, String name) throws MantisException {
+
+			for (MantisCustomField customField : data.getCustomFieldsByProjectId().get(projectId))
+				if (customField.getName().equals(name))
+					return customField;
+
+			throw new MantisException("No custom field with name " + name + " .");
+		}
+
+		public String userName(int userId) {
+
+			for (MantisUser user : data.allUsers.values())
+				if (user.getValue() == userId)
+					return user.getKey();
+
+			return null;
+		}
+	}
+}
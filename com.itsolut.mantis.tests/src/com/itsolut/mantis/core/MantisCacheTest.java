@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.MantisProject;
+import com.itsolut.mantis.core.model.MantisTicketStatus;
+import com.itsolut.mantis.core.model.MantisUser;
+import com.itsolut.mantis.core.model.MantisVersion;
+
+public class MantisCacheTest {
+
+	private static final int PROJECT_ID = 1;
+
+	@Test
+	public void registeringNewReportersPublishesNewSnapshot() {
+		
+		MantisCache cache = new MantisCache();
+		MantisCacheData initial = cache.getCacheData();
+		
+		cache.registerAdditionalReporters(PROJECT_ID, Arrays.asList(new MantisUser(5, "reporter", null, null), new MantisUser(5, "reporter", null, null)));
+		
+		assertNotSame(initial, cache.getCacheData());
+		assertEquals(0, initial.getReportersByProjectId().get(PROJECT_ID).size());
+		assertEquals(1, cache.getCacheData().getReportersByProjectId().get(PROJECT_ID).size());
+		assertEquals("reporter", cache.getUserNameById(5));
+	}
+	
+	@Test
+	public void reportersRegisteredDuringRefreshSurvivePublication() {
+		
+		MantisCache cache = new MantisCache();
+		MantisCache target = new MantisCache();
+		target.setCacheData(cache.getCacheData().copy());
+		
+		cache.registerAdditionalReporter(PROJECT_ID, new MantisUser(5, "reporter", null, null));
+		cache.publishCacheData(target.getCacheData());
+		
+		assertEquals(1, cache.getCacheData().getReportersByProjectId().get(PROJECT_ID).size());
+		assertEquals("reporter", cache.getUserNameById(5));
+	}
+	
+	@Test
+	public void registeringKnownReportersKeepsSnapshot() {
+		
+		MantisCache cache = new MantisCache();
+		cache.registerAdditionalReporter(PROJECT_ID, new MantisUser(5, "reporter", null, null));
+		MantisCacheData snapshot = cache.getCacheData();
+		
+		cache.registerAdditionalReporter(PROJECT_ID, new MantisUser(5, "reporter", null, null));
+		cache.registerAdditionalReporter(PROJECT_ID, new MantisUser(0, "", null, null));
+		
+		assertSame(snapshot, cache.getCacheData());
+	}
+	
+	@Test
+	public void copyIsIndependent() {
+		
+		MantisCacheData original = new MantisCacheData();
+		original.getDevelopersByProjectId().put(PROJECT_ID, new MantisUser(5, "developer", null, null));
+		
+		MantisCacheData copy = original.copy();
+		copy.getDevelopersByProjectId().put(PROJECT_ID, new MantisUser(6, "other", null, null));
+		copy.setLastUpdate(1);
+		
+		assertEquals(1, original.getDevelopersByProjectId().get(PROJECT_ID).size());
+		assertEquals(2, copy.getDevelopersByProjectId().get(PROJECT_ID).size());
+		assertEquals(false, original.hasBeenRefreshed());
+	}
+	
+	@Test
+	public void lookupsSeeChangesMadeAfterIndexing() throws MantisException {
+		
+		MantisCache cache = new MantisCache();
+		cache.cacheProjects(Arrays.asList(new MantisProject("First", 1)));
+		cache.cacheStatuses(Arrays.asList(new MantisTicketStatus("new", 10)));
+		
+		assertEquals("First", cache.getProjectById(1).getName());
+		assertEquals(10, cache.getStatusByName("new").getValue());
+		
+		cache.cacheProjects(Arrays.asList(new MantisProject("First", 1), new MantisProject("Second", 2)));
+		cache.cacheStatuses(Arrays.asList(new MantisTicketStatus("new", 10), new MantisTicketStatus("resolved", 80)));
+		
+		assertEquals(2, cache.getProjectId("Second"));
+		assertEquals("resolved", cache.getStatus(80).getName());
+	}
+	
+	@Test
+	public void userNameLookupById() {
+		
+		MantisCache cache = new MantisCache();
+		cache.cacheProjectDevelopers(PROJECT_ID, Arrays.asList(new MantisUser(5, "developer", null, null)));
+		
+		assertEquals("developer", cache.getUserNameById(5));
+		assertNull(cache.getUserNameById(6));
+	}
+	
+	@Test
+	public void userNameLookupByIdAfterDeserialization() throws IOException, ClassNotFoundException {
+		
+		MantisCache cache = new MantisCache();
+		cache.cacheProjectDevelopers(PROJECT_ID, Arrays.asList(new MantisUser(5, "developer", null, null)));
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(cache.getCacheData());
+		out.close();
+		
+		MantisCache readCache = new MantisCache();
+		readCache.setCacheData((MantisCacheData) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject());
+		
+		assertEquals("developer", readCache.getUserNameById(5));
+	}
+	
+	@Test(expected = MantisException.class)
+	public void missingPriorityIsReported() throws MantisException {
+		
+		new MantisCache().getPriority(10);
+	}
+	
+	@Test
+	public void sectionRefreshTimesAreTrackedPerProject() {
+		
+		MantisCacheData data = new MantisCacheData();
+		data.setSectionRefreshTime(CacheSection.PROJECT_VERSIONS, PROJECT_ID, 1000);
+		data.setSectionRefreshTime(CacheSection.GLOBAL_ENUMS, PROJECT_ID, 2000);
+		
+		MantisCacheData copy = data.copy();
+		copy.setSectionRefreshTime(CacheSection.PROJECT_VERSIONS, PROJECT_ID, 3000);
+		
+		assertEquals(1000, data.getSectionRefreshTime(CacheSection.PROJECT_VERSIONS, PROJECT_ID));
+		assertEquals(0, data.getSectionRefreshTime(CacheSection.PROJECT_VERSIONS, PROJECT_ID + 1));
+		assertEquals(2000, data.getSectionRefreshTime(CacheSection.GLOBAL_ENUMS, PROJECT_ID + 1));
+		assertEquals(3000, copy.getSectionRefreshTime(CacheSection.PROJECT_VERSIONS, PROJECT_ID));
+	}
+	
+	@Test
+	public void projectIsLoadedOnFirstUse() throws MantisException {
+		
+		final MantisCache cache = new MantisCache();
+		cache.cacheProjects(Arrays.asList(new MantisProject("Project", PROJECT_ID)));
+		
+		final int[] loads = new int[1];
+		cache.setProjectLoader(new IMantisProjectLoader() {
+			public void loadProject(int projectId) {
+				
+				loads[0]++;
+				
+				MantisCache target = new MantisCache();
+				target.setCacheData(cache.getCacheData().copy());
+				target.cacheProjectVersions(projectId, Arrays.asList(new MantisVersion("1.0")));
+				target.getCacheData().setSectionRefreshTime(CacheSection.PROJECT_VERSIONS, projectId, 1000);
+				cache.publishCacheData(target.getCacheData());
+			}
+		});
+		
+		assertEquals(1, cache.getVersionsByProjectName("Project").length);
+		assertEquals(1, cache.getVersionsByProjectName("Project").length);
+		assertEquals(1, loads[0]);
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper;
+import org.eclipse.mylyn.tasks.core.data.TaskData;
+import org.eclipse.mylyn.tasks.core.data.TaskDataCollector;
+import org.junit.Test;
+
+import com.itsolut.mantis.core.exception.TicketNotFoundException;
+import com.itsolut.mantis.core.model.MantisTicket;
+
+public class MantisTaskDataHandlerTest {
+
+	private static final int CONCURRENCY = 2;
+
+	private static final int MISSING_TICKET_ID = 2;
+
+	private final TaskRepository repository = new TaskRepository(MantisCorePlugin.REPOSITORY_KIND, "http://localhost");
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	private final CountDownLatch concurrentRequests = new CountDownLatch(CONCURRENCY);
+
+	private final IMantisClient client = (IMantisClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] { IMantisClient.class }, new InvocationHandler() {
+
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+					int id = ((Integer) args[0]).intValue();
+					if (method.getName().equals("getTicket"))
+						return new MantisTicket(id);
+					if (!method.getName().equals("getSearchedTicket"))
+						throw new UnsupportedOperationException(method.getName());
+
+					int current = running.incrementAndGet();
+					try {
+						synchronized (maxRunning) {
+							maxRunning.set(Math.max(maxRunning.get(), current));
+						}
+						// the first requests only complete once they all run at the same time
+						concurrentRequests.countDown();
+						concurrentRequests.await(5, TimeUnit.SECONDS);
+
+						if (id == MISSING_TICKET_ID)
+							throw new TicketNotFoundException(id);
+						return new MantisTicket(id);
+					} finally {
+						running.decrementAndGet();
+					}
+				}
+			});
+
+	private final IMantisClientManager clientManager = (IMantisClientManager) Proxy.newProxyInstance(getClass()
+			.getClassLoader(), new Class<?>[] { IMantisClientManager.class }, new InvocationHandler() {
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			if (!method.getName().equals("getRepository"))
+				throw new UnsupportedOperationException(method.getName());
+
+			return client;
+		}
+	});
+
+	private final MantisTaskDataHandler handler = new MantisTaskDataHandler(clientManager, new StatusFactory(),
+			new MantisCommentMapper(), new NoOpTracer()) {
+
+		@Override
+		public TaskData createTaskDataFromTicket(IMantisClient client, TaskRepository repository, MantisTicket ticket,
+				IProgressMonitor monitor) {
+
+			return new TaskData(new TaskAttributeMapper(repository), repository.getConnectorKind(),
+					repository.getRepositoryUrl(), String.valueOf(ticket.getId()));
+		}
+	};
+
+	private final List<String> accepted = new ArrayList<String>();
+
+	private final List<String> failed = new ArrayList<String>();
+
+	private final TaskDataCollector collector = new TaskDataCollector() {
+
+		@Override
+		public void accept(TaskData taskData) {
+
+			accepted.add(taskData.getTaskId());
+		}
+
+		@Override
+		public void failed(String taskId, IStatus status) {
+
+			failed.add(taskId);
+		}
+	};
+
+	private void getMultiTaskData(String... taskIds) throws Exception {
+
+		MantisRepositoryConfiguration.setTaskDataConcurrency(repository, CONCURRENCY);
+
+		handler.getMultiTaskData(repository, new LinkedHashSet<String>(Arrays.asList(taskIds)), collector,
+				new NullProgressMonitor());
+	}
+
+	@Test
+	public void tasksAreRetrievedConcurrently() throws Exception {
+
+		getMultiTaskData("1", "3", "4", "5");
+
+		Collections.sort(accepted);
+		assertEquals(Arrays.asList("1", "3", "4", "5"), accepted);
+		assertEquals(CONCURRENCY, maxRunning.get());
+	}
+
+	@Test
+	public void failedTaskIsReportedWithoutAbortingTheOthers() throws Exception {
+
+		getMultiTaskData("1", String.valueOf(MISSING_TICKET_ID), "3");
+
+		Collections.sort(accepted);
+		assertEquals(Arrays.asList("1", "3"), accepted);
+		assertEquals(Arrays.asList(String.valueOf(MISSING_TICKET_ID)), failed);
+	}
+
+	@Test
+	public void singleTaskIsNotServedFromSearchedHeaders() throws Exception {
+
+		TaskData taskData = handler.getTaskData(repository, "1", new NullProgressMonitor());
+
+		assertEquals("1", taskData.getTaskId());
+		assertEquals(0, maxRunning.get());
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class QuerySynchronizationSchedulerTest {
+
+	private static final String REPOSITORY_URL = "http://localhost";
+
+	private static final String SEARCH = "project\0filter";
+
+	private final QuerySynchronizationScheduler scheduler = new QuerySynchronizationScheduler();
+
+	private static BitSet ids(int... ids) {
+
+		BitSet bitSet = new BitSet();
+		for (int id : ids)
+			bitSet.set(id);
+		return bitSet;
+	}
+
+	private int skippedCycles() {
+
+		int skipped = 0;
+		while (!scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()))
+			skipped++;
+		return skipped;
+	}
+
+	@Test
+	public void unchangedSearchBacksOffUntilItChanges() {
+
+		// the results of the previous session are not known
+		assertTrue(scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false));
+		assertEquals(0, skippedCycles());
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		assertEquals(1, skippedCycles());
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		assertEquals(3, skippedCycles());
+
+		assertFalse(scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), true));
+		assertEquals(0, skippedCycles());
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		assertTrue(scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1), false));
+		assertEquals(0, skippedCycles());
+	}
+
+	@Test
+	public void searchWithOpenTaskIsAlwaysDue() {
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+
+		scheduler.taskOpened(REPOSITORY_URL, 2);
+		assertTrue(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()));
+
+		scheduler.taskClosed(REPOSITORY_URL, 2);
+		assertFalse(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()));
+	}
+
+	@Test
+	public void searchStaysDueUntilTheLastEditorOfATaskIsClosed() {
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+
+		scheduler.taskOpened(REPOSITORY_URL, 2);
+		scheduler.taskOpened(REPOSITORY_URL, 2);
+
+		scheduler.taskClosed(REPOSITORY_URL, 2);
+		assertTrue(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()));
+
+		scheduler.taskClosed(REPOSITORY_URL, 2);
+		assertFalse(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()));
+	}
+
+	@Test
+	public void removedRepositoryForgetsItsSearches() {
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun("http://other", SEARCH, ids(1, 2), false);
+		scheduler.recordRun("http://other", SEARCH, ids(1, 2), false);
+
+		scheduler.repositoryRemoved(REPOSITORY_URL);
+
+		assertTrue(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date()));
+		assertTrue(scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false));
+		assertFalse(scheduler.isDue("http://other", SEARCH, new Date()));
+	}
+
+	@Test
+	public void skippedSearchLooksForChangesFromTheFirstSkippedCycle() {
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+
+		assertFalse(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date(1000)));
+		assertFalse(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date(2000)));
+		assertFalse(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date(3000)));
+		assertTrue(scheduler.isDue(REPOSITORY_URL, SEARCH, new Date(4000)));
+		assertEquals(new Date(1000), scheduler.getChangedSince(REPOSITORY_URL, SEARCH, new Date(4000)));
+
+		scheduler.recordRun(REPOSITORY_URL, SEARCH, ids(1, 2), false);
+		assertEquals(new Date(5000), scheduler.getChangedSince(REPOSITORY_URL, SEARCH, new Date(5000)));
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Test;
+
+import com.itsolut.mantis.core.model.MantisSearch;
+import com.itsolut.mantis.core.model.MantisTicket;
+
+public class SynchronizationSearchCacheTest {
+
+	private final List<Integer> requestedLimits = new ArrayList<Integer>();
+
+	private final IMantisClient client = (IMantisClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] { IMantisClient.class }, new InvocationHandler() {
+
+				@SuppressWarnings("unchecked")
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+					if (!method.getName().equals("search") || !(args[1] instanceof List))
+						throw new UnsupportedOperationException(method.getName());
+
+					int limit = ((MantisSearch) args[0]).getLimit();
+					requestedLimits.add(limit);
+					for (int i = 1; i <= limit; i++)
+						((List<MantisTicket>) args[1]).add(new MantisTicket(i));
+					return null;
+				}
+			});
+
+	private static MantisSearch newSearch(String filterName, int limit) {
+
+		MantisSearch search = new MantisSearch("Project", filterName);
+		search.setLimit(limit);
+		return search;
+	}
+
+	@Test
+	public void queriesOnTheSameFilterShareOneSearch() throws Exception {
+
+		SynchronizationSearchCache searchCache = new SynchronizationSearchCache(Arrays.asList(newSearch("open", 20)));
+
+		assertEquals(5, searchCache.search(client, newSearch("open", 5), new NullProgressMonitor()).size());
+		assertEquals(20, searchCache.search(client, newSearch("open", 20), new NullProgressMonitor()).size());
+
+		assertEquals(Arrays.asList(20), requestedLimits);
+	}
+
+	@Test
+	public void largerLimitThanExpectedSearchesAgain() throws Exception {
+
+		SynchronizationSearchCache searchCache = new SynchronizationSearchCache(Collections.<MantisSearch> emptyList());
+
+		assertEquals(5, searchCache.search(client, newSearch("open", 5), new NullProgressMonitor()).size());
+		assertEquals(3, searchCache.search(client, newSearch("open", 3), new NullProgressMonitor()).size());
+		assertEquals(10, searchCache.search(client, newSearch("open", 10), new NullProgressMonitor()).size());
+
+		assertEquals(Arrays.asList(5, 10), requestedLimits);
+	}
+}
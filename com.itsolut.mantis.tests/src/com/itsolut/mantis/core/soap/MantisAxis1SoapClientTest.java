@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.soap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.mylyn.commons.net.WebLocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.itsolut.mantis.core.MantisClientSettings;
+import com.itsolut.mantis.core.NoOpTracer;
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisRemoteException;
+
+public class MantisAxis1SoapClientTest {
+
+	private final MantisClientSettings settings = new MantisClientSettings();
+
+	private final AtomicInteger attempts = new AtomicInteger();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void configure() {
+
+		settings.setReadRetries(1);
+		settings.setCircuitBreakerFailures(2);
+		settings.setCircuitBreakerOpenSeconds(60);
+	}
+
+	@After
+	public void shutdown() {
+
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	private MantisAxis1SoapClient newClient() throws MantisException {
+
+		return new MantisAxis1SoapClient(new WebLocation("http://localhost"), settings, new NoOpTracer());
+	}
+
+	private Callable<Object> failing(final MantisException failure) {
+
+		return new Callable<Object>() {
+
+			public Object call() throws MantisException {
+
+				attempts.incrementAndGet();
+				throw failure;
+			}
+		};
+	}
+
+	private static MantisException unreachable() {
+
+		return new MantisRemoteException(new SocketException("Connection reset"));
+	}
+
+	private static MantisException serverFault() {
+
+		return new MantisRemoteException(new AxisFault("Issue does not exist."));
+	}
+
+	private static MantisException httpStatus(int status) {
+
+		AxisFault fault = new AxisFault("HTTP", "(" + status + ")", null, null);
+		fault.addFaultDetail(Constants.QNAME_FAULTDETAIL_HTTPERRORCODE, Integer.toString(status));
+		return new MantisRemoteException(fault);
+	}
+
+	private void expectFailure(MantisAxis1SoapClient client, Callable<Object> callable, boolean write) {
+
+		try {
+			if (write)
+				client.call(new NullProgressMonitor(), callable);
+			else
+				client.read(new NullProgressMonitor(), client.key("test"), callable);
+			fail("Expected a MantisException");
+		} catch (MantisException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void writesAreNeverRetried() throws MantisException {
+
+		MantisAxis1SoapClient client = newClient();
+
+		expectFailure(client, failing(unreachable()), true);
+
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	public void unreachableReadsAreRetried() throws MantisException {
+
+		settings.setCircuitBreakerFailures(5);
+		MantisAxis1SoapClient client = newClient();
+
+		expectFailure(client, failing(unreachable()), false);
+
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	public void serverFaultsAreNotRetried() throws MantisException {
+
+		MantisAxis1SoapClient client = newClient();
+
+		expectFailure(client, failing(serverFault()), false);
+
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	public void unreachableRepositoryOpensTheBreaker() throws MantisException {
+
+		settings.setReadRetries(0);
+		MantisAxis1SoapClient client = newClient();
+
+		expectFailure(client, failing(unreachable()), false);
+		expectFailure(client, failing(unreachable()), false);
+		expectFailure(client, failing(unreachable()), false);
+
+		assertEquals("The open breaker let a request through", 2, attempts.get());
+	}
+
+	@Test
+	public void serverFaultsCloseTheBreaker() throws MantisException {
+
+		settings.setReadRetries(0);
+		MantisAxis1SoapClient client = newClient();
+
+		expectFailure(client, failing(unreachable()), false);
+		expectFailure(client, failing(serverFault()), false);
+		expectFailure(client, failing(unreachable()), false);
+		expectFailure(client, failing(unreachable()), false);
+
+		assertEquals("The fault did not reset the consecutive failures", 4, attempts.get());
+	}
+
+	@Test
+	public void gatewayAndUnavailableStatusesAreUnreachable() {
+
+		assertTrue(MantisAxis1SoapClient.isUnreachable(httpStatus(502)));
+		assertTrue(MantisAxis1SoapClient.isUnreachable(httpStatus(503)));
+		assertTrue(MantisAxis1SoapClient.isUnreachable(httpStatus(504)));
+	}
+
+	@Test
+	public void otherStatusesAreAnswers() {
+
+		assertFalse(MantisAxis1SoapClient.isUnreachable(httpStatus(500)));
+		assertFalse(MantisAxis1SoapClient.isUnreachable(httpStatus(404)));
+		assertFalse(MantisAxis1SoapClient.isUnreachable(serverFault()));
+	}
+
+	@Test
+	public void concurrentIdenticalReadsShareOneRequest() throws Exception {
+
+		MantisAxis1SoapClient client = newClient();
+
+		Future<Object> first = executor.submit(reader(client, client.key("test", 1), new NullProgressMonitor()));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Object> second = executor.submit(reader(client, client.key("test", 1), new NullProgressMonitor()));
+
+		Thread.sleep(200);
+		release.countDown();
+
+		assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, attempts.get());
+	}
+
+	@Test
+	public void writeStartsANewGeneration() throws Exception {
+
+		MantisAxis1SoapClient client = newClient();
+		List<Object> beforeWrite = client.key("test", 1);
+
+		Future<Object> first = executor.submit(reader(client, beforeWrite, new NullProgressMonitor()));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		client.call(new NullProgressMonitor(), new Callable<Object>() {
+
+			public Object call() {
+
+				return null;
+			}
+		});
+
+		List<Object> afterWrite = client.key("test", 1);
+		assertFalse(beforeWrite.equals(afterWrite));
+
+		Future<Object> second = executor.submit(reader(client, afterWrite, new NullProgressMonitor()));
+
+		Thread.sleep(200);
+		release.countDown();
+
+		assertFalse("The read after the write joined the earlier read",
+				first.get(5, TimeUnit.SECONDS).equals(second.get(5, TimeUnit.SECONDS)));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	public void joinerRetriesAfterTheOwnerIsCancelled() throws Exception {
+
+		MantisAxis1SoapClient client = newClient();
+		final NullProgressMonitor ownerMonitor = new NullProgressMonitor();
+		final Callable<Object> request = new Callable<Object>() {
+
+			public Object call() throws InterruptedException {
+
+				int attempt = attempts.incrementAndGet();
+				if (attempt > 1)
+					return Integer.valueOf(attempt);
+
+				started.countDown();
+				while (!ownerMonitor.isCanceled())
+					Thread.sleep(10);
+				throw new OperationCanceledException();
+			}
+		};
+
+		Future<Object> owner = executor.submit(reader(client, client.key("test", 1), ownerMonitor, request));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Object> joiner = executor.submit(reader(client, client.key("test", 1), new NullProgressMonitor(),
+				request));
+
+		Thread.sleep(200);
+		ownerMonitor.setCanceled(true);
+
+		try {
+			owner.get(5, TimeUnit.SECONDS);
+			fail("Expected the owner to be cancelled");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertEquals(Integer.valueOf(2), joiner.get(5, TimeUnit.SECONDS));
+	}
+
+	private Callable<Object> reader(MantisAxis1SoapClient client, List<Object> key, IProgressMonitor monitor) {
+
+		return reader(client, key, monitor, new Callable<Object>() {
+
+			public Object call() throws InterruptedException {
+
+				int attempt = attempts.incrementAndGet();
+				started.countDown();
+				release.await();
+				return Integer.valueOf(attempt);
+			}
+		});
+	}
+
+	private Callable<Object> reader(final MantisAxis1SoapClient client, final List<Object> key,
+			final IProgressMonitor monitor, final Callable<Object> request) {
+
+		return new Callable<Object>() {
+
+			public Object call() throws MantisException {
+
+				return client.read(monitor, key, request);
+			}
+		};
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.soap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Test;
+
+import biz.futureware.mantis.rpc.soap.client.IssueHeaderData;
+
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.exception.MantisLocalException;
+import com.itsolut.mantis.core.exception.MantisRemoteException;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+
+public class MantisIssueHeaderParserTest {
+
+	private static final String ENVELOPE_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<SOAP-ENV:Envelope SOAP-ENV:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\""
+			+ " xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\""
+			+ " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\""
+			+ " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+			+ " xmlns:SOAP-ENC=\"http://schemas.xmlsoap.org/soap/encoding/\""
+			+ " xmlns:tns=\"http://futureware.biz/mantisconnect\"><SOAP-ENV:Body>";
+
+	private static final String ENVELOPE_END = "</SOAP-ENV:Body></SOAP-ENV:Envelope>";
+
+	private static String response(String items) {
+
+		return ENVELOPE_START
+				+ "<ns1:mc_project_get_issue_headersResponse xmlns:ns1=\"http://futureware.biz/mantisconnect\">"
+				+ "<return xsi:type=\"SOAP-ENC:Array\" SOAP-ENC:arrayType=\"tns:IssueHeaderData[]\">" + items
+				+ "</return></ns1:mc_project_get_issue_headersResponse>" + ENVELOPE_END;
+	}
+
+	private static String item(int id, String lastUpdated, String summary) {
+
+		return "<item xsi:type=\"tns:IssueHeaderData\"><id xsi:type=\"xsd:integer\">" + id + "</id>"
+				+ "<view_state xsi:type=\"xsd:integer\">10</view_state>"
+				+ "<last_updated xsi:type=\"xsd:dateTime\">" + lastUpdated + "</last_updated>"
+				+ "<project xsi:type=\"xsd:integer\">1</project>"
+				+ "<category xsi:type=\"xsd:string\">General</category>"
+				+ "<priority xsi:type=\"xsd:integer\">30</priority>"
+				+ "<severity xsi:type=\"xsd:integer\">50</severity>"
+				+ "<status xsi:type=\"xsd:integer\">10</status>"
+				+ "<reporter xsi:type=\"xsd:integer\">2</reporter>"
+				+ "<summary xsi:type=\"xsd:string\">" + summary + "</summary>"
+				+ "<handler xsi:nil=\"true\" xsi:type=\"xsd:integer\"/>"
+				+ "<resolution xsi:type=\"xsd:integer\">10</resolution>"
+				+ "<attachments_count xsi:type=\"xsd:integer\">0</attachments_count>"
+				+ "<notes_count xsi:type=\"xsd:integer\">3</notes_count>"
+				+ "<sticky xsi:type=\"xsd:boolean\">false</sticky></item>";
+	}
+
+	private static List<IssueHeaderData> parse(String response) throws MantisException, UnsupportedEncodingException {
+
+		final List<IssueHeaderData> headers = new ArrayList<IssueHeaderData>();
+		MantisIssueHeaderParser.parse(new ByteArrayInputStream(response.getBytes("UTF-8")), new IssueHeaderConsumer() {
+
+			public void accept(IssueHeaderData header) {
+
+				headers.add(header);
+			}
+		}, new NullProgressMonitor());
+
+		return headers;
+	}
+
+	@Test
+	public void headersAreReadInResponseOrder() throws Exception {
+
+		List<IssueHeaderData> headers = parse(response(item(12, "2010-05-12T10:11:12+02:00", "First &amp; only")
+				+ item(7, "2010-05-12T08:11:12Z", "Second")));
+
+		assertEquals(2, headers.size());
+
+		IssueHeaderData first = headers.get(0);
+		assertEquals(12, first.getId().intValue());
+		assertEquals(10, first.getView_state().intValue());
+		assertEquals("General", first.getCategory());
+		assertEquals(30, first.getPriority().intValue());
+		assertEquals(50, first.getSeverity().intValue());
+		assertEquals(10, first.getStatus().intValue());
+		assertEquals(2, first.getReporter().intValue());
+		assertEquals("First & only", first.getSummary());
+		assertNull(first.getHandler());
+		assertEquals(10, first.getResolution().intValue());
+		assertEquals(0, first.getAttachments_count().intValue());
+		assertEquals(3, first.getNotes_count().intValue());
+
+		IssueHeaderData second = headers.get(1);
+		assertEquals(7, second.getId().intValue());
+		assertEquals(first.getLast_updated().getTimeInMillis(), second.getLast_updated().getTimeInMillis());
+	}
+
+	@Test
+	public void emptyResultHasNoHeaders() throws Exception {
+
+		assertEquals(0, parse(response("")).size());
+	}
+
+	@Test(expected = MantisRemoteException.class)
+	public void faultIsReported() throws Exception {
+
+		parse(ENVELOPE_START + "<SOAP-ENV:Fault><faultcode xsi:type=\"xsd:string\">Client</faultcode>"
+				+ "<faultstring xsi:type=\"xsd:string\">Access denied</faultstring></SOAP-ENV:Fault>" + ENVELOPE_END);
+	}
+
+	@Test(expected = MantisLocalException.class)
+	public void multiReferencedValuesAreRejected() throws Exception {
+
+		parse(response("<item href=\"#id1\"/>"));
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.soap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Test;
+
+import biz.futureware.mantis.rpc.soap.client.IssueHeaderData;
+
+import com.itsolut.mantis.core.IMantisTicketCollector;
+import com.itsolut.mantis.core.TraceLocation;
+import com.itsolut.mantis.core.Tracer;
+import com.itsolut.mantis.core.exception.MantisException;
+import com.itsolut.mantis.core.model.MantisTicket;
+import com.itsolut.mantis.core.soap.MantisIssueHeaderParser.IssueHeaderConsumer;
+
+public class MantisSearchPagerTest {
+
+	private static final int PAGE_SIZE = 3;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final List<Integer> requestedPages = Collections.synchronizedList(new ArrayList<Integer>());
+
+	private final List<Integer> collectedIds = new ArrayList<Integer>();
+
+	@After
+	public void shutdown() {
+
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void pagesThroughResultsUntilAShortPage() throws MantisException {
+
+		search(new RepositoryPages(7), 0, 0);
+
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), collectedIds);
+		assertEquals(Arrays.asList(1, 2, 3), requestedPages);
+	}
+
+	@Test
+	public void stopsPagingAtTheLimit() throws MantisException {
+
+		search(new RepositoryPages(10), 0, 5);
+
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), collectedIds);
+		assertEquals(Arrays.asList(1, 2), requestedPages);
+	}
+
+	@Test
+	public void repeatedIdEndsTheSearch() throws MantisException {
+
+		// the last page is full, so the request past it is answered with the last page again
+		search(new RepositoryPages(6), 0, 0);
+
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), collectedIds);
+		assertEquals(Arrays.asList(1, 2, 3), requestedPages);
+	}
+
+	@Test
+	public void prefetchesNoMoreThanTheLookahead() throws MantisException {
+
+		final int prefetch = 2;
+		search(new RepositoryPages(20), prefetch, 0, new IMantisTicketCollector() {
+
+			public boolean accept(List<MantisTicket> tickets) {
+
+				for (MantisTicket ticket : tickets) {
+					int page = (ticket.getId() - 1) / PAGE_SIZE + 1;
+					assertTrue("Requested pages " + requestedPages + " while on page " + page,
+							requestedPages.size() <= page + prefetch);
+					collectedIds.add(Integer.valueOf(ticket.getId()));
+				}
+				return true;
+			}
+		});
+
+		assertEquals(20, collectedIds.size());
+	}
+
+	@Test
+	public void cancelsPrefetchedPagesWhenTheCollectorStops() throws Exception {
+
+		final CountDownLatch blockedPageStarted = new CountDownLatch(1);
+		final CountDownLatch blockedPageInterrupted = new CountDownLatch(1);
+
+		MantisSearchPager.PageSource source = new RepositoryPages(20) {
+
+			@Override
+			public void getIssueHeaders(int page, int pageSize, IssueHeaderConsumer consumer, IProgressMonitor monitor)
+					throws MantisException {
+
+				if (page < 3) {
+					super.getIssueHeaders(page, pageSize, consumer, monitor);
+					return;
+				}
+
+				blockedPageStarted.countDown();
+				try {
+					new CountDownLatch(1).await();
+				} catch (InterruptedException e) {
+					blockedPageInterrupted.countDown();
+				}
+			}
+		};
+
+		search(source, 1, 0, new IMantisTicketCollector() {
+
+			public boolean accept(List<MantisTicket> tickets) throws MantisException {
+
+				for (MantisTicket ticket : tickets) {
+					collectedIds.add(Integer.valueOf(ticket.getId()));
+					if (ticket.getId() == PAGE_SIZE + 1)
+						return !await(blockedPageStarted);
+				}
+				return true;
+			}
+		});
+
+		assertEquals(Arrays.asList(1, 2, 3, 4), collectedIds);
+		assertTrue("The prefetched page was not cancelled", blockedPageInterrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	private static boolean await(CountDownLatch latch) {
+
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private void search(MantisSearchPager.PageSource source, int prefetch, int limit) throws MantisException {
+
+		search(source, prefetch, limit, new IMantisTicketCollector() {
+
+			public boolean accept(List<MantisTicket> tickets) {
+
+				for (MantisTicket ticket : tickets)
+					collectedIds.add(Integer.valueOf(ticket.getId()));
+				return true;
+			}
+		});
+	}
+
+	private void search(MantisSearchPager.PageSource source, int prefetch, int limit, IMantisTicketCollector collector)
+			throws MantisException {
+
+		MantisSearchPager pager = new MantisSearchPager(executor, source, new MantisSearchPager.TicketConverter() {
+
+			public MantisTicket convert(IssueHeaderData issueHeader) {
+
+				return new MantisTicket(issueHeader.getId().intValue());
+			}
+		}, PAGE_SIZE, prefetch, limit, new Tracer() {
+
+			public void trace(TraceLocation location, String message, Object... arguments) {
+
+			}
+		});
+
+		pager.search("test", collector, new NullProgressMonitor());
+	}
+
+	/**
+	 * Serves issues numbered from 1, answering requests past the last page with the last page, as Mantis does
+	 */
+	private class RepositoryPages implements MantisSearchPager.PageSource {
+
+		private final int issueCount;
+
+		RepositoryPages(int issueCount) {
+
+			this.issueCount = issueCount;
+		}
+
+		public void getIssueHeaders(int page, int pageSize, IssueHeaderConsumer consumer, IProgressMonitor monitor)
+				throws MantisException {
+
+			requestedPages.add(Integer.valueOf(page));
+
+			int lastPage = (issueCount + pageSize - 1) / pageSize;
+			int first = (Math.min(page, lastPage) - 1) * pageSize + 1;
+			for (int id = first; id < first + pageSize && id <= issueCount; id++) {
+				IssueHeaderData header = new IssueHeaderData();
+				header.setId(BigInteger.valueOf(id));
+				consumer.accept(header);
+			}
+		}
+	}
+}
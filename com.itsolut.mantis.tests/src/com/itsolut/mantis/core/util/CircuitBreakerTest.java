@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.itsolut.mantis.core.util.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+	private long nanos;
+
+	private final List<String> transitions = new ArrayList<String>();
+
+	private final CircuitBreaker breaker = new CircuitBreaker(3, 10, TimeUnit.SECONDS, new Ticker() {
+
+		@Override
+		public long read() {
+
+			return nanos;
+		}
+	}) {
+
+		@Override
+		protected void stateChanged(State previous, State current) {
+
+			transitions.add(previous + "->" + current);
+		}
+	};
+
+	private void elapse(long seconds) {
+
+		nanos += TimeUnit.SECONDS.toNanos(seconds);
+	}
+
+	private void fail(int times) {
+
+		for (int i = 0; i < times; i++) {
+			assertTrue(breaker.allowRequest());
+			breaker.recordFailure();
+		}
+	}
+
+	@Test
+	public void opensAfterConsecutiveFailuresOnly() {
+
+		fail(2);
+		breaker.recordSuccess();
+		fail(2);
+		assertEquals(State.CLOSED, breaker.getState());
+
+		fail(1);
+		assertEquals(State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+
+		elapse(9);
+		assertFalse(breaker.allowRequest());
+		assertEquals("[CLOSED->OPEN]", transitions.toString());
+	}
+
+	@Test
+	public void singleProbeClosesAfterOpenDuration() {
+
+		fail(3);
+		elapse(10);
+
+		assertTrue(breaker.allowRequest());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+
+		breaker.recordSuccess();
+		assertEquals(State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+		assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", transitions.toString());
+	}
+
+	@Test
+	public void failedProbeOpensAgain() {
+
+		fail(3);
+		elapse(10);
+
+		fail(1);
+		assertEquals(State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+
+		elapse(10);
+		assertTrue(breaker.allowRequest());
+		assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN, OPEN->HALF_OPEN]", transitions.toString());
+	}
+
+	@Test
+	public void abandonedProbeIsReplaced() {
+
+		fail(3);
+		elapse(10);
+		assertTrue(breaker.allowRequest());
+
+		elapse(9);
+		assertFalse(breaker.allowRequest());
+
+		elapse(1);
+		assertTrue(breaker.allowRequest());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IntHashMapTest {
+
+	private final IntHashMap<String> map = new IntHashMap<String>();
+
+	@Test
+	public void findsEntriesAfterGrowing() {
+
+		for (int key = -500; key < 500; key += 10)
+			map.put(key, "value" + key);
+
+		assertEquals(100, map.size());
+		for (int key = -500; key < 500; key += 10) {
+			assertTrue(map.containsKey(key));
+			assertEquals("value" + key, map.get(key));
+		}
+		assertFalse(map.containsKey(5));
+		assertNull(map.get(5));
+	}
+
+	@Test
+	public void putReplacesTheValue() {
+
+		assertNull(map.put(10, "first"));
+		assertEquals("first", map.put(10, "second"));
+
+		assertEquals("second", map.get(10));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+
+		map.put(1, "one");
+		IntHashMap<String> copy = new IntHashMap<String>(map);
+		copy.put(2, "two");
+
+		assertEquals("one", copy.get(1));
+		assertFalse(map.containsKey(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullValuesAreRejected() {
+
+		map.put(1, null);
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package com.itsolut.mantis.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.After;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+	private final SingleFlight<String, Integer> singleFlight = new SingleFlight<String, Integer>();
+	
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	
+	private final CountDownLatch started = new CountDownLatch(1);
+	
+	private final CountDownLatch release = new CountDownLatch(1);
+	
+	private final AtomicInteger executions = new AtomicInteger();
+	
+	@After
+	public void shutdown() {
+		
+		release.countDown();
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void concurrentCallersShareOneExecution() throws Exception {
+		
+		Future<Integer> first = executor.submit(newCaller("key", new NullProgressMonitor()));
+		started.await(5, TimeUnit.SECONDS);
+		Future<Integer> second = executor.submit(newCaller("key", new NullProgressMonitor()));
+		
+		Thread.sleep(200);
+		release.countDown();
+		
+		assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(1), second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, executions.get());
+	}
+	
+	@Test
+	public void keyIsReleasedAfterCompletion() throws Exception {
+		
+		release.countDown();
+		
+		assertEquals(Integer.valueOf(1), newCaller("key", new NullProgressMonitor()).call());
+		assertEquals(Integer.valueOf(2), newCaller("key", new NullProgressMonitor()).call());
+	}
+	
+	@Test
+	public void failureIsSharedWithCallers() throws InterruptedException {
+		
+		final IOException failure = new IOException();
+		
+		try {
+			singleFlight.execute("key", new Callable<Integer>() {
+				public Integer call() throws Exception {
+					
+					throw failure;
+				}
+			}, new NullProgressMonitor());
+		} catch (ExecutionException e) {
+			assertSame(failure, e.getCause());
+			return;
+		}
+		
+		fail("Expected an ExecutionException");
+	}
+	
+	@Test(expected = OperationCanceledException.class)
+	public void cancelledCallerStopsWaiting() throws Throwable {
+		
+		executor.submit(newCaller("key", new NullProgressMonitor()));
+		started.await(5, TimeUnit.SECONDS);
+		
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		
+		try {
+			executor.submit(newCaller("key", monitor)).get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		}
+	}
+	
+	private Callable<Integer> newCaller(final String key, final NullProgressMonitor monitor) {
+		
+		return new Callable<Integer>() {
+			public Integer call() throws Exception {
+				
+				return singleFlight.execute(key, new Callable<Integer>() {
+					public Integer call() throws Exception {
+						
+						int execution = executions.incrementAndGet();
+						started.countDown();
+						release.await();
+						return execution;
+					}
+				}, monitor);
+			}
+		};
+	}
+}
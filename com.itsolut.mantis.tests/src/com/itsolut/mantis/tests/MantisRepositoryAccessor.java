@@ -27,6 +27,7 @@ import biz.futureware.mantis.rpc.soap.client.MantisConnectPortType;
 
 import com.google.common.collect.Maps;
 import com.itsolut.mantis.core.IMantisClient;
+import com.itsolut.mantis.core.IMantisClientListener;
 import com.itsolut.mantis.core.IMantisClientManager;
 import com.itsolut.mantis.core.MantisAttachmentHandler;
 import com.itsolut.mantis.core.MantisClientFactory;
@@ -64,6 +65,10 @@ public class MantisRepositoryAccessor {
 		public void onShutdown() {
 			// ignore
 		}
+
+		public void setClientListener(IMantisClientListener listener) {
+			// clients are never removed
+		}
 	}
 
 	public static final IMantisClientManager clientManager = new InMemoryMantisClientManager();
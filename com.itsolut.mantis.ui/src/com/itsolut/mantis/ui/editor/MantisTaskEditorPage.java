@@ -5,15 +5,19 @@ import java.util.Set;
 
 import org.eclipse.mylyn.internal.tasks.ui.editors.CheckboxMultiSelectAttributeEditor;
 import org.eclipse.mylyn.tasks.core.data.TaskAttribute;
+import org.eclipse.mylyn.tasks.ui.TasksUi;
 import org.eclipse.mylyn.tasks.ui.editors.AbstractAttributeEditor;
 import org.eclipse.mylyn.tasks.ui.editors.AbstractTaskEditorPage;
 import org.eclipse.mylyn.tasks.ui.editors.AbstractTaskEditorPart;
 import org.eclipse.mylyn.tasks.ui.editors.AttributeEditorFactory;
 import org.eclipse.mylyn.tasks.ui.editors.TaskEditor;
 import org.eclipse.mylyn.tasks.ui.editors.TaskEditorPartDescriptor;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorSite;
 
 import com.itsolut.mantis.core.MantisAttributeMapper.Attribute;
 import com.itsolut.mantis.core.MantisCorePlugin;
+import com.itsolut.mantis.core.MantisRepositoryConnector;
 
 public class MantisTaskEditorPage extends AbstractTaskEditorPage {
 
@@ -29,6 +33,25 @@ public class MantisTaskEditorPage extends AbstractTaskEditorPage {
 		setNeedsSubmit(true);
 	}
 
+	@Override
+	public void init(IEditorSite site, IEditorInput input) {
+		super.init(site, input);
+		
+		// searches containing an open task are checked on every synchronization
+		getConnector().taskEditorOpened(getTask());
+	}
+
+	@Override
+	public void dispose() {
+		getConnector().taskEditorClosed(getTask());
+		
+		super.dispose();
+	}
+
+	private MantisRepositoryConnector getConnector() {
+		return (MantisRepositoryConnector) TasksUi.getRepositoryManager().getRepositoryConnector(MantisCorePlugin.REPOSITORY_KIND);
+	}
+
 	@Override
 	protected Set<TaskEditorPartDescriptor> createPartDescriptors() {
 		Set<TaskEditorPartDescriptor> descriptors = super.createPartDescriptors();
@@ -35,6 +35,7 @@ import org.eclipse.mylyn.tasks.core.TaskRepository;
 import org.eclipse.mylyn.tasks.core.data.TaskAttachmentModel;
 import org.eclipse.mylyn.tasks.ui.AbstractRepositoryConnectorUi;
 import org.eclipse.mylyn.tasks.ui.LegendElement;
+import org.eclipse.mylyn.tasks.ui.TasksUi;
 import org.eclipse.mylyn.tasks.ui.wizards.ITaskRepositoryPage;
 import org.eclipse.mylyn.tasks.ui.wizards.ITaskSearchPage;
 import org.eclipse.mylyn.tasks.ui.wizards.TaskAttachmentPage;
@@ -46,6 +47,7 @@ import com.google.inject.Injector;
 import com.itsolut.mantis.core.IMantisClientManager;
 import com.itsolut.mantis.core.MantisClientFactory;
 import com.itsolut.mantis.core.MantisCorePlugin;
+import com.itsolut.mantis.core.MantisRepositoryConnector;
 import com.itsolut.mantis.core.MantisRepositoryLocations;
 import com.itsolut.mantis.core.SourceForgeConstants;
 import com.itsolut.mantis.core.StatusFactory;
@@ -81,6 +83,9 @@ public class MantisRepositoryUi extends AbstractRepositoryConnectorUi {
         
         injector.injectMembers(MantisUIPlugin.getDefault());
         injector.injectMembers(this);
+        
+        MantisRepositoryConnector connector = (MantisRepositoryConnector) TasksUi.getRepositoryManager().getRepositoryConnector(MantisCorePlugin.REPOSITORY_KIND);
+        connector.setQueryProvider(new TaskListQueryProvider());
     }
 
     @Override
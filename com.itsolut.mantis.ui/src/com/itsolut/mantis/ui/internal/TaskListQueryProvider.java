@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IT Solutions, Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package com.itsolut.mantis.ui.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.mylyn.internal.tasks.core.RepositoryQuery;
+import org.eclipse.mylyn.internal.tasks.ui.util.TasksUiInternal;
+import org.eclipse.mylyn.tasks.core.IRepositoryQuery;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+import com.itsolut.mantis.core.IMantisQueryProvider;
+import com.itsolut.mantis.core.MantisCorePlugin;
+
+/**
+ * Lists the Mantis queries of a repository from the workbench task list
+ */
+@SuppressWarnings("restriction")
+class TaskListQueryProvider implements IMantisQueryProvider {
+
+    public Collection<IRepositoryQuery> getQueries(TaskRepository repository) {
+
+        List<IRepositoryQuery> queries = new ArrayList<IRepositoryQuery>();
+        for (RepositoryQuery query : TasksUiInternal.getTaskList().getRepositoryQueries(repository.getRepositoryUrl()))
+            if (MantisCorePlugin.REPOSITORY_KIND.equals(query.getConnectorKind()))
+                queries.add(query);
+
+        return queries;
+    }
+}
@@ -45,7 +45,7 @@ public class MantisUIUtil {
                 public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
 
                     try {
-                        client.updateAttributes(monitor);
+                        client.updateAttributes(monitor, true);
                     } catch (MantisException e) {
                         throw new InvocationTargetException(e);
                     }